@@ -0,0 +1,156 @@
+package io.github.honhimw.jsonql.common;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Resizes a Hikari pool within bounds by its load. Every period the pool grows by a quarter if threads were waiting
+ * for a connection or the average wait exceeded the target, and shrinks by one if less than half of it was in use.
+ * Install it with {@link #configure(HikariConfig)} before the pool is created and {@link #start(HikariDataSource)}
+ * after, it stops with the pool. Whatever is sized to the pool, e.g. an {@link AsyncLimiter}, follows it through
+ * {@link #onResize(IntConsumer)}.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+@Slf4j
+public class AdaptivePoolSizer implements MetricsTrackerFactory {
+
+    public static final long DEFAULT_PERIOD_MILLIS = 5_000;
+
+    public static final long DEFAULT_TARGET_WAIT_MILLIS = 20;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jsonql-pool-sizer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int minimumPoolSize;
+
+    private final int maximumPoolSize;
+
+    private final long periodMillis;
+
+    private final long targetWaitNanos;
+
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    private final AtomicLong acquisitions = new AtomicLong();
+
+    private final AtomicInteger peakActive = new AtomicInteger();
+
+    private final List<IntConsumer> listeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledFuture<?> task;
+
+    public AdaptivePoolSizer(int minimumPoolSize, int maximumPoolSize) {
+        this(minimumPoolSize, maximumPoolSize, DEFAULT_PERIOD_MILLIS, DEFAULT_TARGET_WAIT_MILLIS);
+    }
+
+    public AdaptivePoolSizer(int minimumPoolSize, int maximumPoolSize, long periodMillis, long targetWaitMillis) {
+        if (minimumPoolSize <= 0 || maximumPoolSize < minimumPoolSize) {
+            throw new IllegalArgumentException("invalid pool size bounds: [%d, %d]".formatted(minimumPoolSize, maximumPoolSize));
+        }
+        this.minimumPoolSize = minimumPoolSize;
+        this.maximumPoolSize = maximumPoolSize;
+        this.periodMillis = periodMillis;
+        this.targetWaitNanos = TimeUnit.MILLISECONDS.toNanos(targetWaitMillis);
+    }
+
+    /**
+     * Measure connection waits of the pool to be created, and start it within the bounds.
+     */
+    public void configure(HikariConfig config) {
+        config.setMetricsTrackerFactory(this);
+        config.setMaximumPoolSize(Math.max(minimumPoolSize, Math.min(maximumPoolSize, config.getMaximumPoolSize())));
+        config.setMinimumIdle(Math.min(config.getMinimumIdle(), config.getMaximumPoolSize()));
+    }
+
+    public synchronized void start(HikariDataSource dataSource) {
+        if (Objects.nonNull(task)) {
+            throw new IllegalStateException("pool sizer is already started.");
+        }
+        task = SCHEDULER.scheduleWithFixedDelay(() -> adjust(dataSource), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (Objects.nonNull(task)) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * The listener is called with the new maximum pool size after each resize.
+     */
+    public void onResize(IntConsumer listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                waitNanos.addAndGet(elapsedAcquiredNanos);
+                acquisitions.incrementAndGet();
+                peakActive.accumulateAndGet(poolStats.getActiveConnections(), Math::max);
+            }
+        };
+    }
+
+    private void adjust(HikariDataSource dataSource) {
+        if (dataSource.isClosed()) {
+            stop();
+            return;
+        }
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (Objects.isNull(pool)) {
+            return;
+        }
+        try {
+            HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+            int current = config.getMaximumPoolSize();
+            long count = acquisitions.getAndSet(0);
+            long averageWait = count > 0 ? waitNanos.getAndSet(0) / count : 0;
+            int peak = Math.max(peakActive.getAndSet(0), pool.getActiveConnections());
+            int target = current;
+            if (pool.getThreadsAwaitingConnection() > 0 || averageWait > targetWaitNanos) {
+                target = Math.min(maximumPoolSize, current + Math.max(1, current / 4));
+            } else if (peak < current / 2) {
+                target = Math.max(minimumPoolSize, current - 1);
+            }
+            if (target != current) {
+                log.debug("resize pool [{}]: {} -> {}", config.getPoolName(), current, target);
+                if (target < config.getMinimumIdle()) {
+                    config.setMinimumIdle(target);
+                }
+                config.setMaximumPoolSize(target);
+                for (IntConsumer listener : listeners) {
+                    listener.accept(target);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("resize pool failed.", e);
+        }
+    }
+
+}
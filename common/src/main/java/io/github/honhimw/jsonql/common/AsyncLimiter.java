@@ -0,0 +1,158 @@
+package io.github.honhimw.jsonql.common;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on the given executor with at most {@code limit} of them in flight, the rest wait in a queue without
+ * holding a thread. Size it to the connection pool, and resize it along with the pool, so callers never block on a
+ * pool checkout.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class AsyncLimiter {
+
+    /**
+     * Shared unbounded pool of daemon threads, the limiters bound how many of them are busy. Prefer a virtual-thread
+     * executor where available, e.g. {@code Executors.newVirtualThreadPerTaskExecutor()} on Java 21.
+     */
+    public static final Executor DEFAULT_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jsonql-async-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private volatile int limit;
+
+    private final Executor executor;
+
+    private final Queue<Task> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    public AsyncLimiter(int limit) {
+        this(limit, DEFAULT_EXECUTOR);
+    }
+
+    public AsyncLimiter(int limit, Executor executor) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive: %d".formatted(limit));
+        }
+        this.limit = limit;
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        pending.add(new Task(() -> {
+            try {
+                if (!future.isDone()) {
+                    future.complete(task.call());
+                }
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }, future));
+        drain();
+        return future;
+    }
+
+    /**
+     * Run the task only if a slot is free right now, never queue it.
+     *
+     * @return null if the limit is reached
+     */
+    public <T> CompletableFuture<T> trySubmit(Callable<T> task) {
+        int current;
+        do {
+            current = running.get();
+            if (current >= limit) {
+                return null;
+            }
+        } while (!running.compareAndSet(current, current + 1));
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    running.decrementAndGet();
+                    drain();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.decrementAndGet();
+            return null;
+        }
+        return future;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Tasks in flight beyond a lowered limit run to completion, no new one starts until they are below it.
+     */
+    public void setLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive: %d".formatted(limit));
+        }
+        this.limit = limit;
+        drain();
+    }
+
+    public int getRunning() {
+        return running.get();
+    }
+
+    public int getPending() {
+        return pending.size();
+    }
+
+    private void drain() {
+        while (!pending.isEmpty()) {
+            int current = running.get();
+            if (current >= limit) {
+                // a running task drains again once it finishes
+                return;
+            }
+            if (!running.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Task job = pending.poll();
+            if (Objects.isNull(job)) {
+                running.decrementAndGet();
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        job.run().run();
+                    } finally {
+                        running.decrementAndGet();
+                        drain();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                running.decrementAndGet();
+                job.future().completeExceptionally(e);
+            }
+        }
+    }
+
+    private record Task(Runnable run, CompletableFuture<?> future) {
+    }
+
+}
@@ -0,0 +1,143 @@
+package io.github.honhimw.jsonql.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Approximate row count of a count query from the statistics of the database, instead of running it:
+ * <ul>
+ *     <li>PostgreSQL: row estimate of {@code EXPLAIN (FORMAT JSON)}</li>
+ *     <li>MySQL: {@code rows * filtered} of every table in {@code EXPLAIN}</li>
+ *     <li>H2: {@code ROW_COUNT_ESTIMATE} of the table, only if the count is of that table alone and not filtered</li>
+ * </ul>
+ * Any other database, or any failure, yields no estimate. Within a transaction the estimation runs behind a savepoint,
+ * on PostgreSQL a failing statement would abort the transaction.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+@Slf4j
+public final class CountEstimator {
+
+    private static final ObjectMapper MAPPER = JsonUtils.getObjectMapper();
+
+    private CountEstimator() {
+    }
+
+    /**
+     * @param table root table of the count query, for table level statistics
+     * @return null if there is no estimate
+     */
+    public static Long estimate(Connection connection, String countSql, List<Object> parameters, String table) {
+        try {
+            if (connection.getAutoCommit()) {
+                return estimate(connection, connection.getMetaData().getDatabaseProductName(), countSql, parameters, table);
+            }
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                Long estimate = estimate(connection, connection.getMetaData().getDatabaseProductName(), countSql, parameters, table);
+                connection.releaseSavepoint(savepoint);
+                return estimate;
+            } catch (SQLException | JsonProcessingException | RuntimeException e) {
+                connection.rollback(savepoint);
+                throw e;
+            }
+        } catch (SQLException | JsonProcessingException | RuntimeException e) {
+            log.debug("count estimation failed, fall back to exact count.", e);
+        }
+        return null;
+    }
+
+    private static Long estimate(Connection connection, String product, String countSql, List<Object> parameters, String table) throws SQLException, JsonProcessingException {
+        if (StringUtils.equalsIgnoreCase(product, "PostgreSQL")) {
+            return postgresql(connection, countSql, parameters);
+        } else if (StringUtils.equalsIgnoreCase(product, "MySQL")) {
+            return mysql(connection, countSql, parameters);
+        } else if (StringUtils.equalsIgnoreCase(product, "H2")) {
+            return h2(connection, countSql, table);
+        }
+        return null;
+    }
+
+    private static Long postgresql(Connection connection, String countSql, List<Object> parameters) throws SQLException, JsonProcessingException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + countSql)) {
+            bind(statement, parameters);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                JsonNode plan = MAPPER.readTree(resultSet.getString(1)).at("/0/Plan");
+                // the aggregate itself returns one row, what it counts is estimated by its input
+                if ("Aggregate".equals(plan.at("/Node Type").asText()) && plan.at("/Plans/0").isObject()) {
+                    plan = plan.at("/Plans/0");
+                }
+                JsonNode rows = plan.at("/Plan Rows");
+                return rows.isNumber() ? rows.asLong() : null;
+            }
+        }
+    }
+
+    private static Long mysql(Connection connection, String countSql, List<Object> parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + countSql)) {
+            bind(statement, parameters);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                double estimate = 1;
+                boolean found = false;
+                while (resultSet.next()) {
+                    long rows = resultSet.getLong("rows");
+                    if (resultSet.wasNull()) {
+                        // e.g. "Select tables optimized away"
+                        return null;
+                    }
+                    double filtered = resultSet.getDouble("filtered");
+                    estimate *= rows * (resultSet.wasNull() ? 100 : filtered) / 100;
+                    found = true;
+                }
+                return found ? Math.round(estimate) : null;
+            }
+        }
+    }
+
+    /**
+     * Only a count of the table itself, not of a join, of a subquery or of a table of another schema.
+     */
+    private static Long h2(Connection connection, String countSql, String table) throws SQLException {
+        if (Objects.isNull(table) || StringUtils.containsIgnoreCase(countSql, " where ") || StringUtils.containsIgnoreCase(countSql, " join ")) {
+            return null;
+        }
+        String from = StringUtils.substringAfter(countSql.toLowerCase(), " from ").trim();
+        if (from.isEmpty() || StringUtils.contains(from, ',')) {
+            return null;
+        }
+        String fromTable = StringUtils.strip(StringUtils.substringBefore(from, " "), "\"`[]");
+        if (!StringUtils.equalsIgnoreCase(fromTable, table)) {
+            return null;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+            "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = CURRENT_SCHEMA AND UPPER(TABLE_NAME) = UPPER(?)")) {
+            statement.setString(1, table);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : null;
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement statement, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            statement.setObject(i + 1, parameters.get(i));
+        }
+    }
+
+}
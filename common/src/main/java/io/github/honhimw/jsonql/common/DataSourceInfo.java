@@ -6,6 +6,7 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -33,4 +34,29 @@ public class DataSourceInfo implements Serializable {
 
     private Map<String, Object> properties;
 
+    /**
+     * Connection pool settings, defaults of {@link PoolSettings} if null.
+     */
+    private PoolSettings pool;
+
+    /**
+     * Read replicas, selects are routed to them by {@link ReplicaRouter}, pooled with the settings of the primary.
+     */
+    private List<ReplicaInfo> replicas;
+
+    /**
+     * Balancing over the replicas, {@link ReplicaRouter.Balancing#ROUND_ROBIN} if null.
+     */
+    private ReplicaRouter.Balancing replicaBalancing;
+
+    /**
+     * Selects stay on the primary for this long after a write, {@link ReplicaRouter#DEFAULT_READ_YOUR_WRITES_MILLIS}
+     * if null.
+     */
+    private Long readYourWritesMillis;
+
+    public DataSourceInfo(String id, JDBCDriverType driverType, String host, Integer port, String username, String password, Map<String, Object> properties) {
+        this(id, driverType, host, port, username, password, properties, null, null, null, null);
+    }
+
 }
@@ -19,7 +19,8 @@ public class FakePreparedStatement implements PreparedStatement {
     private List<Object> params;
 
     public FakePreparedStatement() {
-        this.params = initList(2);
+        // jdbc parameter index starts from 1, so a statement without parameters yields an empty list
+        this.params = initList(1);
     }
 
     public List<Object> getParams() {
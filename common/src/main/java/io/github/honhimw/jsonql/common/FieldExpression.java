@@ -0,0 +1,131 @@
+package io.github.honhimw.jsonql.common;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Objects;
+
+/**
+ * Parsed field reference: {@code field}, {@code ref.field}, or a context placeholder {@code _{var}_}. Descriptors are
+ * interned in a bounded cache, so a distinct expression is parsed once instead of on every occurrence.
+ *
+ * @param ref  alias of the referenced table of a {@link Kind#REF_FIELD}, otherwise null
+ * @param name field name, or variable name of a {@link Kind#PLACEHOLDER}, null for {@link Kind#OTHER}
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public record FieldExpression(Kind kind, String ref, String name) {
+
+    public enum Kind {
+        /**
+         * {@code [a-zA-Z_][a-zA-Z_0-9]*}
+         */
+        FIELD,
+        /**
+         * two fields joined by a dot
+         */
+        REF_FIELD,
+        /**
+         * {@code _{[a-zA-Z0-9_]+}_}
+         */
+        PLACEHOLDER,
+        /**
+         * anything else, e.g. a function call or an aliased expression
+         */
+        OTHER,
+    }
+
+    private static final int MAXIMUM_CACHED_LENGTH = 128;
+
+    private static final FieldExpression OTHER = new FieldExpression(Kind.OTHER, null, null);
+
+    private static final Cache<String, FieldExpression> CACHE = CacheBuilder.newBuilder()
+        .maximumSize(4096)
+        .build();
+
+    public static FieldExpression of(String text) {
+        Objects.requireNonNull(text);
+        if (text.length() > MAXIMUM_CACHED_LENGTH) {
+            return parse(text);
+        }
+        FieldExpression expression = CACHE.getIfPresent(text);
+        if (Objects.isNull(expression)) {
+            expression = parse(text);
+            CACHE.put(text, expression);
+        }
+        return expression;
+    }
+
+    /**
+     * Literal values are checked without being cached, only placeholder-shaped ones are.
+     *
+     * @return variable name of a {@code _{var}_} placeholder, otherwise null
+     */
+    public static String placeholder(String text) {
+        if (Objects.isNull(text) || text.length() < 5 || !text.startsWith("_{") || !text.endsWith("}_")) {
+            return null;
+        }
+        FieldExpression expression = of(text);
+        return expression.kind() == Kind.PLACEHOLDER ? expression.name() : null;
+    }
+
+    public boolean isField() {
+        return kind == Kind.FIELD;
+    }
+
+    public boolean isRefField() {
+        return kind == Kind.REF_FIELD;
+    }
+
+    public boolean isPlaceholder() {
+        return kind == Kind.PLACEHOLDER;
+    }
+
+    static FieldExpression parse(String text) {
+        int length = text.length();
+        int end = identifier(text, 0);
+        if (end == length && end > 0) {
+            return new FieldExpression(Kind.FIELD, null, text);
+        }
+        if (end > 0 && end < length - 1 && text.charAt(end) == '.') {
+            int fieldEnd = identifier(text, end + 1);
+            if (fieldEnd == length && fieldEnd > end + 1) {
+                return new FieldExpression(Kind.REF_FIELD, text.substring(0, end), text.substring(end + 1));
+            }
+        }
+        if (length >= 5 && text.startsWith("_{") && text.endsWith("}_")) {
+            for (int i = 2; i < length - 2; i++) {
+                char c = text.charAt(i);
+                if (!isLetter(c) && !isDigit(c)) {
+                    return OTHER;
+                }
+            }
+            return new FieldExpression(Kind.PLACEHOLDER, null, text.substring(2, length - 2));
+        }
+        return OTHER;
+    }
+
+    /**
+     * @return end of the identifier starting at {@code from}, {@code from} if there is none
+     */
+    private static int identifier(String text, int from) {
+        if (from >= text.length() || !isLetter(text.charAt(from))) {
+            return from;
+        }
+        int i = from + 1;
+        while (i < text.length() && (isLetter(text.charAt(i)) || isDigit(text.charAt(i)))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+}
@@ -0,0 +1,69 @@
+package io.github.honhimw.jsonql.common;
+
+/**
+ * Metrics SPI, every method is a no-op by default. Install an implementation with {@link Metrics#use(JsonQLMetrics)},
+ * e.g. {@link MicrometerMetrics}.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public interface JsonQLMetrics {
+
+    JsonQLMetrics NONE = new JsonQLMetrics() {
+    };
+
+    enum Phase {
+        /**
+         * JSON text to tree
+         */
+        PARSE,
+        /**
+         * whole compilation of a request, including plan cache lookups
+         */
+        COMPILE,
+        /**
+         * walking the request with the visitor chain
+         */
+        VISIT,
+        /**
+         * building and rendering the criteria query
+         */
+        CRITERIA,
+        /**
+         * translating the rendered query to SQL
+         */
+        TRANSLATE,
+        /**
+         * preparing and binding the statement
+         */
+        PREPARE,
+        /**
+         * executing the statement
+         */
+        EXECUTE,
+        /**
+         * reading the result set
+         */
+        EXTRACT,
+    }
+
+    default void recordPhase(Phase phase, long nanos) {
+    }
+
+    /**
+     * One executed request.
+     *
+     * @param table        root table, null for a transaction
+     * @param dataSourceId null for the embedded data source
+     */
+    default void recordRequest(String operation, String table, String dataSourceId, long nanos, boolean success) {
+    }
+
+    /**
+     * Rows returned by a select or affected by an insert, update or delete.
+     */
+    default void recordRows(String operation, String table, String dataSourceId, long rows) {
+    }
+
+}
@@ -0,0 +1,179 @@
+package io.github.honhimw.jsonql.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keyset(seek) pagination, a select is in keyset mode if it has {@code after} values for its {@code orderBy}
+ * columns, or the opaque {@code cursor} returned by the previous page. An empty {@code after} or a null
+ * {@code cursor} asks for the first page.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public final class KeysetCursor {
+
+    private static final ObjectMapper MAPPER = JsonUtils.getObjectMapper();
+
+    private KeysetCursor() {
+    }
+
+    public static boolean isKeyset(JsonNode rootNode) {
+        return !rootNode.at(Nodes.AFTER.pointer()).isMissingNode() || !rootNode.at(Nodes.CURSOR.pointer()).isMissingNode();
+    }
+
+    /**
+     * @return values to seek after, empty for the first page, null if not in keyset mode
+     */
+    public static ArrayNode after(JsonNode rootNode) {
+        JsonNode afterNode = rootNode.at(Nodes.AFTER.pointer());
+        JsonNode cursorNode = rootNode.at(Nodes.CURSOR.pointer());
+        if (afterNode.isArray()) {
+            return afterNode.require();
+        } else if (!JsonUtils.isMissingOrNull(afterNode)) {
+            throw new IllegalArgumentException("`after` must be an array.");
+        }
+        if (cursorNode.isTextual() && StringUtils.isNotEmpty(cursorNode.textValue())) {
+            return decode(cursorNode.textValue());
+        } else if (!JsonUtils.isMissingOrNull(cursorNode) && !cursorNode.isTextual()) {
+            throw new IllegalArgumentException("`cursor` must be a string.");
+        }
+        return isKeyset(rootNode) ? MAPPER.createArrayNode() : null;
+    }
+
+    /**
+     * @return cursor of the page after the given one, null if it is the last page
+     */
+    public static String next(JsonNode rootNode, List<Map<String, Object>> rows, int pageSize) {
+        if (rows.isEmpty() || rows.size() < pageSize) {
+            return null;
+        }
+        Map<String, Object> last = rows.get(rows.size() - 1);
+        ArrayNode values = MAPPER.createArrayNode();
+        for (JsonNode orderBy : rootNode.at(Nodes.ORDER_BY.pointer())) {
+            String label = label(orderBy.asText());
+            if (!last.containsKey(label)) {
+                throw new IllegalArgumentException("keyset column [%s] must be selected.".formatted(label));
+            }
+            values.add(key(last.get(label)));
+        }
+        return encode(values);
+    }
+
+    /**
+     * Value to seek after, converted to the Java type of its column. Date/time text is read as written by
+     * {@link #next}, or as {@code yyyy-MM-dd HH:mm:ss} and {@link JsonUtils#RFC_3339}(local time despite the
+     * {@code Z}, as cursors of earlier versions were written).
+     */
+    public static Object value(JsonNode node, Class<?> type) {
+        if (JsonUtils.isMissingOrNull(node)) {
+            return null;
+        }
+        try {
+            if (node.isTextual()) {
+                Object temporal = temporal(node.textValue(), type);
+                if (Objects.nonNull(temporal)) {
+                    return temporal;
+                }
+            }
+            if (Objects.isNull(type) || type == Object.class) {
+                return MAPPER.treeToValue(node, Object.class);
+            }
+            return MAPPER.treeToValue(node, type);
+        } catch (JsonProcessingException | DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid keyset value %s of type [%s].".formatted(node, type.getSimpleName()), e);
+        }
+    }
+
+    /**
+     * Cursor value of a column, date/time is written in full precision and without a zone unless it has one, longs as
+     * numbers.
+     */
+    private static JsonNode key(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return TextNode.valueOf(timestamp.toLocalDateTime().toString());
+        } else if (value instanceof java.sql.Date date) {
+            return TextNode.valueOf(date.toLocalDate().toString());
+        } else if (value instanceof Time time) {
+            return TextNode.valueOf(time.toLocalTime().toString());
+        } else if (value instanceof Date date) {
+            return TextNode.valueOf(date.toInstant().toString());
+        } else if (value instanceof TemporalAccessor) {
+            return TextNode.valueOf(value.toString());
+        } else if (value instanceof Long number) {
+            return LongNode.valueOf(number);
+        }
+        return MAPPER.valueToTree(value);
+    }
+
+    private static Object temporal(String text, Class<?> type) {
+        if (Objects.isNull(type)) {
+            return null;
+        }
+        String local = StringUtils.removeEnd(text.trim().replace(' ', 'T'), "Z");
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(local);
+        } else if (type == LocalDate.class) {
+            return LocalDate.parse(StringUtils.substringBefore(local, "T"));
+        } else if (type == LocalTime.class) {
+            return LocalTime.parse(local);
+        } else if (type == java.sql.Date.class) {
+            return java.sql.Date.valueOf(LocalDate.parse(StringUtils.substringBefore(local, "T")));
+        } else if (type == Time.class) {
+            return Time.valueOf(LocalTime.parse(local));
+        } else if (type == Timestamp.class || type == Date.class) {
+            return Timestamp.valueOf(LocalDateTime.parse(local));
+        } else if (type == OffsetDateTime.class) {
+            return OffsetDateTime.parse(text.trim());
+        } else if (type == Instant.class) {
+            return Instant.parse(text.trim());
+        }
+        return null;
+    }
+
+    /**
+     * Column label of an {@code orderBy} item, e.g. {@code -m.created_at} is labeled {@code created_at}.
+     */
+    public static String label(String orderBy) {
+        String field = StringUtils.removeStart(StringUtils.removeStart(orderBy, "+"), "-");
+        return field.contains(".") ? StringUtils.substringAfterLast(field, ".") : field;
+    }
+
+    public static String encode(ArrayNode values) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(values));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static ArrayNode decode(String cursor) {
+        try {
+            JsonNode values = MAPPER.readTree(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (Objects.nonNull(values) && values.isArray()) {
+                return values.require();
+            }
+        } catch (IllegalArgumentException | JsonProcessingException ignored) {
+        }
+        throw new IllegalArgumentException("invalid cursor: [%s]".formatted(cursor));
+    }
+
+}
@@ -0,0 +1,45 @@
+package io.github.honhimw.jsonql.common;
+
+import java.util.Objects;
+
+/**
+ * Holder of the installed {@link JsonQLMetrics}. Timing is skipped entirely while none is installed:
+ * {@link #start()} returns 0 and {@link #phase} ignores it.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public final class Metrics {
+
+    private static volatile JsonQLMetrics metrics = JsonQLMetrics.NONE;
+
+    private Metrics() {
+    }
+
+    public static void use(JsonQLMetrics metrics) {
+        Metrics.metrics = Objects.requireNonNull(metrics);
+    }
+
+    public static JsonQLMetrics get() {
+        return metrics;
+    }
+
+    public static boolean enabled() {
+        return metrics != JsonQLMetrics.NONE;
+    }
+
+    /**
+     * @return start time of a phase, 0 if disabled
+     */
+    public static long start() {
+        return enabled() ? System.nanoTime() : 0L;
+    }
+
+    public static void phase(JsonQLMetrics.Phase phase, long start) {
+        if (start != 0L) {
+            metrics.recordPhase(phase, System.nanoTime() - start);
+        }
+    }
+
+}
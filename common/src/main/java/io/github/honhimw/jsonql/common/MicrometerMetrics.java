@@ -0,0 +1,71 @@
+package io.github.honhimw.jsonql.common;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JsonQLMetrics} on Micrometer, which is an optional dependency. Meters:
+ * <ul>
+ *     <li>{@code jsonql.phase} timer, tagged by {@code phase}</li>
+ *     <li>{@code jsonql.requests} timer, tagged by {@code operation}, {@code table}, {@code datasource} and {@code outcome}</li>
+ *     <li>{@code jsonql.rows} distribution summary, tagged by {@code operation}, {@code table} and {@code datasource}</li>
+ * </ul>
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class MicrometerMetrics implements JsonQLMetrics {
+
+    private static final String NONE_TAG = "none";
+
+    private final MeterRegistry registry;
+
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+
+    public MicrometerMetrics(MeterRegistry registry) {
+        this.registry = Objects.requireNonNull(registry);
+        for (Phase phase : Phase.values()) {
+            phaseTimers.put(phase, Timer.builder("jsonql.phase")
+                .tag("phase", phase.name().toLowerCase())
+                .register(registry));
+        }
+    }
+
+    @Override
+    public void recordPhase(Phase phase, long nanos) {
+        phaseTimers.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordRequest(String operation, String table, String dataSourceId, long nanos, boolean success) {
+        Timer.builder("jsonql.requests")
+            .tag("operation", tag(operation))
+            .tag("table", tag(table))
+            .tag("datasource", tag(dataSourceId))
+            .tag("outcome", success ? "success" : "error")
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordRows(String operation, String table, String dataSourceId, long rows) {
+        DistributionSummary.builder("jsonql.rows")
+            .tag("operation", tag(operation))
+            .tag("table", tag(table))
+            .tag("datasource", tag(dataSourceId))
+            .register(registry)
+            .record(rows);
+    }
+
+    private static String tag(String value) {
+        return Objects.nonNull(value) ? value : NONE_TAG;
+    }
+
+}
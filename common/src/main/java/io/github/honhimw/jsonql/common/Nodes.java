@@ -1,5 +1,7 @@
 package io.github.honhimw.jsonql.common;
 
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 
 import javax.annotation.Nonnull;
@@ -17,11 +19,21 @@ public enum Nodes {
     CONDITION("condition", JsonNodeType.OBJECT),
     DATA("data", JsonNodeType.OBJECT),
     EFFECT_MAX_ROWS("effectMaxRows", JsonNodeType.NUMBER),
+    BATCH_SIZE("batchSize", JsonNodeType.NUMBER),
+    STEPS("steps", JsonNodeType.ARRAY),
+    NAME("name", JsonNodeType.STRING),
     SELECTIONS("selections", JsonNodeType.ARRAY),
     COUNT("count", JsonNodeType.BOOLEAN),
+    COUNT_MODE("countMode", JsonNodeType.STRING),
+    PARALLEL("parallel", JsonNodeType.NULL),
+    LAZY("lazy", JsonNodeType.NULL),
+    ESTIMATE("estimate", JsonNodeType.NULL),
+    ESTIMATE_THRESHOLD("estimateThreshold", JsonNodeType.NUMBER),
     DISTINCT("distinct", JsonNodeType.BOOLEAN),
     PAGE("page", JsonNodeType.NUMBER),
     PAGE_SIZE("pageSize", JsonNodeType.NUMBER),
+    AFTER("after", JsonNodeType.ARRAY),
+    CURSOR("cursor", JsonNodeType.STRING),
     JOIN("join", JsonNodeType.ARRAY),
     TYPE("type", JsonNodeType.STRING),
     INNER("inner", JsonNodeType.NULL),
@@ -54,6 +66,8 @@ public enum Nodes {
 
     private final String path;
 
+    private final JsonPointer pointer;
+
     private final JsonNodeType jsonNodeType;
 
     public String key() {
@@ -64,6 +78,20 @@ public enum Nodes {
         return path;
     }
 
+    /**
+     * Pre-compiled {@link #path()}, {@code node.at(X.pointer())} does not parse the path again.
+     */
+    public JsonPointer pointer() {
+        return pointer;
+    }
+
+    /**
+     * Same as {@code node.at(X.pointer())}, the field of an object node or a missing node.
+     */
+    public JsonNode get(JsonNode node) {
+        return node.path(key);
+    }
+
     public JsonNodeType jsonType() {
         return jsonNodeType;
     }
@@ -75,6 +103,7 @@ public enum Nodes {
     Nodes(String key, JsonNodeType jsonNodeType) {
         this.key = key;
         this.path = "/" + key;
+        this.pointer = JsonPointer.compile(path);
         this.jsonNodeType = jsonNodeType;
     }
 
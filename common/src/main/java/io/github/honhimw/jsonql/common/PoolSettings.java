@@ -0,0 +1,80 @@
+package io.github.honhimw.jsonql.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Connection pool settings of a {@link DataSourceInfo}, durations in milliseconds. Unset values fall back to the
+ * defaults below.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PoolSettings implements Serializable {
+
+    public static final int DEFAULT_MAXIMUM_POOL_SIZE = 16;
+
+    public static final int DEFAULT_MINIMUM_IDLE = 2;
+
+    public static final long DEFAULT_CONNECTION_TIMEOUT = 4_000;
+
+    public static final long DEFAULT_IDLE_TIMEOUT = 60_000;
+
+    public static final long DEFAULT_MAX_LIFETIME = 1_800_000;
+
+    private Integer maximumPoolSize;
+
+    private Integer minimumIdle;
+
+    private Long connectionTimeout;
+
+    private Long idleTimeout;
+
+    private Long maxLifetime;
+
+    /**
+     * Resize the pool between {@code adaptiveMinimumPoolSize} and {@code adaptiveMaximumPoolSize} by its load, see
+     * {@link AdaptivePoolSizer}.
+     */
+    private boolean adaptive;
+
+    private Integer adaptiveMinimumPoolSize;
+
+    private Integer adaptiveMaximumPoolSize;
+
+    public int maximumPoolSizeOrDefault() {
+        return maximumPoolSize != null ? maximumPoolSize : DEFAULT_MAXIMUM_POOL_SIZE;
+    }
+
+    public int minimumIdleOrDefault() {
+        return minimumIdle != null ? minimumIdle : Math.min(DEFAULT_MINIMUM_IDLE, maximumPoolSizeOrDefault());
+    }
+
+    public long connectionTimeoutOrDefault() {
+        return connectionTimeout != null ? connectionTimeout : DEFAULT_CONNECTION_TIMEOUT;
+    }
+
+    public long idleTimeoutOrDefault() {
+        return idleTimeout != null ? idleTimeout : DEFAULT_IDLE_TIMEOUT;
+    }
+
+    public long maxLifetimeOrDefault() {
+        return maxLifetime != null ? maxLifetime : DEFAULT_MAX_LIFETIME;
+    }
+
+    public int adaptiveMinimumPoolSizeOrDefault() {
+        return adaptiveMinimumPoolSize != null ? adaptiveMinimumPoolSize : Math.max(1, minimumIdleOrDefault());
+    }
+
+    public int adaptiveMaximumPoolSizeOrDefault() {
+        return adaptiveMaximumPoolSize != null ? adaptiveMaximumPoolSize : maximumPoolSizeOrDefault() * 4;
+    }
+
+}
@@ -0,0 +1,32 @@
+package io.github.honhimw.jsonql.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Read replica endpoint of a {@link DataSourceInfo}, unset credentials and properties are those of the primary.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplicaInfo implements Serializable {
+
+    private String host;
+
+    private Integer port;
+
+    private String username;
+
+    private String password;
+
+    private Map<String, Object> properties;
+
+}
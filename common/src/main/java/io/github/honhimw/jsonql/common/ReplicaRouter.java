@@ -0,0 +1,183 @@
+package io.github.honhimw.jsonql.common;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Routes reads over the read replicas of a data source. Reads of a session go to the primary for a while after each
+ * write of the same session, so a caller reads its own writes despite replication lag, and whenever no replica hands
+ * out a connection. Reads of other sessions keep going to the replicas.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+@Slf4j
+public class ReplicaRouter implements AutoCloseable {
+
+    public static final long DEFAULT_READ_YOUR_WRITES_MILLIS = 1_000;
+
+    public enum Balancing {
+        /**
+         * replicas in turn
+         */
+        ROUND_ROBIN,
+        /**
+         * the replica with the fewest reads in flight, in turn among equals
+         */
+        LEAST_PENDING,
+    }
+
+    private final List<DataSource> replicas;
+
+    private final Balancing balancing;
+
+    private final long readYourWritesNanos;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final AtomicIntegerArray pending;
+
+    /**
+     * End of the read-your-writes window by session, expired ones are dropped on the next write.
+     */
+    private final Map<Object, Long> primaryUntil = new ConcurrentHashMap<>();
+
+    /**
+     * @param balancing            {@link Balancing#ROUND_ROBIN} if null
+     * @param readYourWritesMillis reads go to the primary for this long after a write, 0 to not wait
+     */
+    public ReplicaRouter(List<? extends DataSource> replicas, Balancing balancing, long readYourWritesMillis) {
+        if (Objects.isNull(replicas) || replicas.isEmpty()) {
+            throw new IllegalArgumentException("replica router requires at least one replica.");
+        }
+        if (readYourWritesMillis < 0) {
+            throw new IllegalArgumentException("readYourWritesMillis must not be negative: %d".formatted(readYourWritesMillis));
+        }
+        this.replicas = List.copyOf(replicas);
+        this.balancing = Objects.nonNull(balancing) ? balancing : Balancing.ROUND_ROBIN;
+        this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(readYourWritesMillis);
+        this.pending = new AtomicIntegerArray(this.replicas.size());
+    }
+
+    /**
+     * Connection of a replica for a read, a replica failing to hand out one is skipped.
+     *
+     * @param session the reading session, e.g. an executor or a user, see {@link #written(Object)}, nullable
+     * @return null if the read should go to the primary
+     */
+    public Lease acquire(Object session) {
+        if (Objects.nonNull(session)) {
+            Long until = primaryUntil.get(session);
+            if (Objects.nonNull(until) && System.nanoTime() - until < 0) {
+                return null;
+            }
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        if (balancing == Balancing.LEAST_PENDING) {
+            int least = start;
+            for (int i = 1; i < size; i++) {
+                int index = (start + i) % size;
+                if (pending.get(index) < pending.get(least)) {
+                    least = index;
+                }
+            }
+            start = least;
+        }
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            pending.incrementAndGet(index);
+            try {
+                return new Lease(replicas.get(index).getConnection(), index);
+            } catch (SQLException | RuntimeException e) {
+                pending.decrementAndGet(index);
+                log.warn("get connection of replica[{}] failed, try the next one.", index, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Mark a write of the session, its reads go to the primary for the read-your-writes window from now on. The
+     * session is compared by {@link Object#equals}.
+     */
+    public void written(Object session) {
+        Objects.requireNonNull(session, "session");
+        if (readYourWritesNanos > 0) {
+            long now = System.nanoTime();
+            primaryUntil.values().removeIf(until -> now - until >= 0);
+            primaryUntil.put(session, now + readYourWritesNanos);
+        }
+    }
+
+    /**
+     * @return reads in flight per replica
+     */
+    public int[] pending() {
+        int[] snapshot = new int[pending.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = pending.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Close the replicas that are closeable, e.g. pools.
+     */
+    @Override
+    public void close() {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("close replica failed.", e);
+                }
+            }
+        }
+    }
+
+    public final class Lease implements AutoCloseable {
+
+        private final Connection connection;
+
+        private final int index;
+
+        private boolean closed;
+
+        private Lease(Connection connection, int index) {
+            this.connection = connection;
+            this.index = index;
+        }
+
+        public Connection connection() {
+            return connection;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                connection.close();
+            } finally {
+                pending.decrementAndGet(index);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,150 @@
+package io.github.honhimw.jsonql.common;
+
+import jdk.jfr.*;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flight Recorder event of one executed request, disabled by default, enable it in a recording by its name, e.g.
+ * {@code jfr configure io.github.honhimw.jsonql.Request#enabled=true}. The event spans the whole request on its
+ * thread, so the JDBC socket reads of the same thread fall within it.
+ * <p>
+ * While not recording, {@link #begin()} returns null and the compiler hooks return after reading a counter.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+@Name("io.github.honhimw.jsonql.Request")
+@Label("JsonQL Request")
+@Category("JsonQL")
+@Description("Compilation and execution of one JsonQL request")
+@Enabled(false)
+@StackTrace(false)
+public class RequestEvent extends Event {
+
+    private static final ThreadLocal<RequestEvent> CURRENT = new ThreadLocal<>();
+
+    /**
+     * events in flight over all threads, the thread local is only read while there are any
+     */
+    private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Table")
+    private String table;
+
+    @Label("Data Source")
+    private String dataSourceId;
+
+    @Label("SQL Hash")
+    @Description("Hash code of the first compiled SQL")
+    private int sqlHash;
+
+    @Label("Compile Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    private long compileDuration;
+
+    @Label("Execute Duration")
+    @Description("Duration of the request besides compilation")
+    @Timespan(Timespan.NANOSECONDS)
+    private long executeDuration;
+
+    @Label("Rows")
+    @Description("Rows returned by a select or affected by a write")
+    private long rows;
+
+    @Label("Plan Cache")
+    @Description("hit, miss or none if the request was not looked up in a plan cache")
+    private String planCache;
+
+    private transient long startNanos;
+
+    private transient RequestEvent previous;
+
+    /**
+     * Begin the event of a request on the current thread.
+     *
+     * @return null if the event is not recorded
+     */
+    public static RequestEvent begin() {
+        RequestEvent event = new RequestEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.previous = CURRENT.get();
+        CURRENT.set(event);
+        IN_FLIGHT.incrementAndGet();
+        event.startNanos = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commit the event and restore the event of the enclosing request, e.g. the transaction of a step.
+     */
+    public static void end(RequestEvent event, String operation, String table, String dataSourceId, long rows) {
+        if (Objects.isNull(event)) {
+            return;
+        }
+        event.end();
+        event.operation = operation;
+        event.table = table;
+        event.dataSourceId = dataSourceId;
+        event.rows = rows;
+        event.executeDuration = System.nanoTime() - event.startNanos - event.compileDuration;
+        if (Objects.isNull(event.planCache)) {
+            event.planCache = "none";
+        }
+        event.commit();
+        if (Objects.nonNull(event.previous)) {
+            CURRENT.set(event.previous);
+        } else {
+            CURRENT.remove();
+        }
+        IN_FLIGHT.decrementAndGet();
+    }
+
+    /**
+     * @return start time of a compilation, 0 if no event is recorded on the current thread
+     */
+    public static long compileStart() {
+        return Objects.nonNull(current()) ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Add a compilation to the event of the current thread.
+     *
+     * @param start from {@link #compileStart()}
+     */
+    public static void compiled(long start, String sql) {
+        if (start == 0L) {
+            return;
+        }
+        RequestEvent event = current();
+        if (Objects.nonNull(event)) {
+            event.compileDuration += System.nanoTime() - start;
+            if (event.sqlHash == 0 && Objects.nonNull(sql)) {
+                event.sqlHash = sql.hashCode();
+            }
+        }
+    }
+
+    /**
+     * Record a plan cache lookup on the event of the current thread, a batch counts as a hit only if every row hits.
+     */
+    public static void planCache(boolean hit) {
+        RequestEvent event = current();
+        if (Objects.nonNull(event) && !"miss".equals(event.planCache)) {
+            event.planCache = hit ? "hit" : "miss";
+        }
+    }
+
+    private static RequestEvent current() {
+        return IN_FLIGHT.get() == 0 ? null : CURRENT.get();
+    }
+
+}
@@ -0,0 +1,282 @@
+package io.github.honhimw.jsonql.common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of select results, keyed by the compiled statements and their parameters. Only selects whose tables(the
+ * root table and every joined table) all have a TTL are cached, an entry expires after the shortest TTL of its tables.
+ * <p>
+ * A write through the same executor invalidates its table by bumping a generation counter: entries remember the
+ * generations of their tables as of before their select ran, and are dropped on read once any of them has moved, so a
+ * select racing with a write is never served afterwards. Writes by anything else are only bounded by the TTL.
+ * <p>
+ * Selects within a transaction are not cached, they may read rows that are never committed. Likewise a write within
+ * a transaction the executor only joined is invalidated before it commits, a select in between re-caches the rows
+ * as of before the write, only bounded by the TTL. Selects routed to a read replica are not cached either, the
+ * replica may not have caught up with the writes that invalidated the cache.
+ * <p>
+ * Cached results are shared between callers, so they are returned unmodifiable.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class ResultCache {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 1_000;
+
+    public static final int DEFAULT_MAXIMUM_ROWS = 1_000;
+
+    private final Cache<List<Object>, Entry> cache;
+
+    private final Map<String, Duration> ttls;
+
+    private final Duration defaultTtl;
+
+    private final int maximumRows;
+
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    private ResultCache(Builder builder) {
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(builder.maximumSize)
+            .recordStats()
+            .build();
+        this.ttls = Map.copyOf(builder.ttls);
+        this.defaultTtl = builder.defaultTtl;
+        this.maximumRows = builder.maximumRows;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Tables read by a select: its root table and the tables of its joins.
+     */
+    public static Set<String> readTables(JsonNode rootNode) {
+        Set<String> tables = new HashSet<>();
+        tables.add(rootNode.at(Nodes.TABLE.pointer()).asText());
+        JsonNode joinNode = rootNode.at(Nodes.JOIN.pointer());
+        if (joinNode.isArray()) {
+            for (JsonNode node : joinNode) {
+                JsonNode tableNode = node.at(Nodes.TABLE.pointer());
+                if (tableNode.isTextual()) {
+                    tables.add(tableNode.asText());
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * @param tables tables read by the select
+     * @param key    compiled statements with their parameters, and whatever else shapes the result
+     * @param loader runs the select on a miss
+     */
+    public Object get(Collection<String> tables, List<Object> key, Loader loader) throws SQLException {
+        String[] names = tables.stream().map(ResultCache::normalize).distinct().toArray(String[]::new);
+        Duration ttl = ttl(names);
+        if (Objects.isNull(ttl)) {
+            return loader.load();
+        }
+        Entry entry = cache.getIfPresent(key);
+        if (Objects.nonNull(entry)) {
+            if (isValid(entry)) {
+                hits.increment();
+                return entry.value();
+            }
+            cache.asMap().remove(key, entry);
+        }
+        misses.increment();
+        long[] snapshot = new long[names.length];
+        for (int i = 0; i < names.length; i++) {
+            snapshot[i] = generation(names[i]).get();
+        }
+        Object value = loader.load();
+        if (rows(value) <= maximumRows) {
+            value = freeze(value);
+            cache.put(key, new Entry(value, names, snapshot, System.nanoTime() + ttl.toNanos()));
+        }
+        return value;
+    }
+
+    /**
+     * @return whether selects reading the tables are cached, i.e. all of them have a TTL
+     */
+    public boolean caches(Collection<String> tables) {
+        return Objects.nonNull(ttl(tables.stream().map(ResultCache::normalize).distinct().toArray(String[]::new)));
+    }
+
+    /**
+     * Drop every cached result that read the table.
+     */
+    public void invalidate(String table) {
+        if (Objects.isNull(table)) {
+            return;
+        }
+        generation(normalize(table)).incrementAndGet();
+        invalidations.increment();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        invalidations.increment();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), cache.stats().evictionCount(), invalidations.sum(), cache.size());
+    }
+
+    private boolean isValid(Entry entry) {
+        if (System.nanoTime() - entry.expiresAt() >= 0) {
+            return false;
+        }
+        for (int i = 0; i < entry.tables().length; i++) {
+            if (entry.generations()[i] != generation(entry.tables()[i]).get()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Duration ttl(String[] tables) {
+        Duration min = null;
+        for (String table : tables) {
+            Duration ttl = ttls.getOrDefault(table, defaultTtl);
+            if (Objects.isNull(ttl)) {
+                return null;
+            }
+            if (Objects.isNull(min) || ttl.compareTo(min) < 0) {
+                min = ttl;
+            }
+        }
+        return min;
+    }
+
+    private AtomicLong generation(String table) {
+        return generations.computeIfAbsent(table, _table -> new AtomicLong());
+    }
+
+    private static String normalize(String table) {
+        return table.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the value with its lists and maps, nested ones included, copied into unmodifiable ones
+     */
+    private static Object freeze(Object value) {
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(freeze(element));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>(Math.max(16, map.size() * 2));
+            map.forEach((key, element) -> copy.put(key, freeze(element)));
+            return Collections.unmodifiableMap(copy);
+        }
+        return value;
+    }
+
+    private static long rows(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (value instanceof Map<?, ?> map && map.get("list") instanceof Collection<?> list) {
+            return list.size();
+        }
+        return 1;
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        Object load() throws SQLException;
+    }
+
+    /**
+     * @param hits          lookups served from the cache
+     * @param misses        lookups of cacheable selects that ran the select
+     * @param evictions     entries evicted for the size bound
+     * @param invalidations tables invalidated by writes
+     * @param size          cached results, stale ones included until they are read or evicted
+     */
+    public record Stats(long hits, long misses, long evictions, long invalidations, long size) {
+    }
+
+    private record Entry(Object value, String[] tables, long[] generations, long expiresAt) {
+    }
+
+    public static class Builder {
+
+        private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+        private int maximumRows = DEFAULT_MAXIMUM_ROWS;
+
+        private Duration defaultTtl;
+
+        private final Map<String, Duration> ttls = new HashMap<>();
+
+        /**
+         * Maximum cached results, least recently used ones are evicted beyond it.
+         */
+        public Builder maximumSize(long maximumSize) {
+            if (maximumSize <= 0) {
+                throw new IllegalArgumentException("maximumSize must be positive: %d".formatted(maximumSize));
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Results with more rows are not cached.
+         */
+        public Builder maximumRows(int maximumRows) {
+            if (maximumRows < 0) {
+                throw new IllegalArgumentException("maximumRows must not be negative: %d".formatted(maximumRows));
+            }
+            this.maximumRows = maximumRows;
+            return this;
+        }
+
+        /**
+         * TTL of tables without one of their own, selects reading them are not cached if null(default).
+         */
+        public Builder defaultTtl(Duration defaultTtl) {
+            this.defaultTtl = defaultTtl;
+            return this;
+        }
+
+        public Builder table(String table, Duration ttl) {
+            if (Objects.isNull(ttl) || ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("ttl of table [%s] must be positive: %s".formatted(table, ttl));
+            }
+            ttls.put(normalize(Objects.requireNonNull(table)), ttl);
+            return this;
+        }
+
+        public ResultCache build() {
+            return new ResultCache(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,155 @@
+package io.github.honhimw.jsonql.common;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.github.honhimw.jsonql.common.visitor.InsertVisitor;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Request read with a streaming parser. Its fields are read into a tree, except the {@code data} array of a batch
+ * insert: its rows are kept as tokens and materialized one at a time by {@link #rows()}, so a large batch never
+ * exists as a whole {@link JsonNode} tree.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public final class StreamingRequest {
+
+    private static final ObjectMapper MAPPER = JsonUtils.getObjectMapper();
+
+    private final ObjectNode rootNode;
+
+    private final TokenBuffer rows;
+
+    private StreamingRequest(ObjectNode rootNode, TokenBuffer rows) {
+        this.rootNode = rootNode;
+        this.rows = rows;
+    }
+
+    public static StreamingRequest read(String json) throws JsonProcessingException {
+        try (JsonParser parser = MAPPER.createParser(json)) {
+            return read(parser);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static StreamingRequest read(InputStream inputStream) throws IOException {
+        try (JsonParser parser = MAPPER.createParser(inputStream)) {
+            return read(parser);
+        }
+    }
+
+    /**
+     * Read the object at the current token, or the next one if the parser has no current token.
+     */
+    public static StreamingRequest read(JsonParser parser) throws IOException {
+        JsonToken token = parser.hasCurrentToken() ? parser.currentToken() : parser.nextToken();
+        if (token != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("request must be an object.");
+        }
+        ObjectNode rootNode = MAPPER.createObjectNode();
+        TokenBuffer rows = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (Nodes.DATA.key().equals(name) && value == JsonToken.START_ARRAY) {
+                rows = new TokenBuffer(parser);
+                rows.copyCurrentStructure(parser);
+                rootNode.remove(name);
+            } else {
+                JsonNode valueNode = MAPPER.readTree(parser);
+                rootNode.set(name, valueNode);
+                if (Nodes.DATA.key().equals(name)) {
+                    rows = null;
+                }
+            }
+        }
+        return new StreamingRequest(rootNode, rows);
+    }
+
+    /**
+     * @return the request, without the rows of a batch insert
+     */
+    public ObjectNode getRootNode() {
+        return rootNode;
+    }
+
+    /**
+     * @return true if this is an insert of an array of rows
+     */
+    public boolean isBatch() {
+        return Objects.nonNull(rows) && StringUtils.equalsIgnoreCase(rootNode.at(Nodes.OPERATION.pointer()).asText(), InsertVisitor.OPERATOR);
+    }
+
+    /**
+     * Rows of a batch insert, each parsed as it is iterated.
+     */
+    public Iterator<JsonNode> rows() {
+        if (Objects.isNull(rows)) {
+            throw new IllegalStateException("request has no rows.");
+        }
+        JsonParser parser = rows.asParser(MAPPER);
+        try {
+            parser.nextToken();
+            JsonToken first = parser.nextToken();
+            return new Iterator<>() {
+                private JsonToken next = first;
+
+                @Override
+                public boolean hasNext() {
+                    return Objects.nonNull(next) && next != JsonToken.END_ARRAY;
+                }
+
+                @Override
+                public JsonNode next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    try {
+                        JsonNode row = MAPPER.readTree(parser);
+                        next = parser.nextToken();
+                        return row;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the whole request as a tree, rows included
+     */
+    public ObjectNode toTree() {
+        if (Objects.isNull(rows)) {
+            return rootNode;
+        }
+        ObjectNode tree = rootNode.deepCopy();
+        try (JsonParser parser = rows.asParser(MAPPER)) {
+            parser.nextToken();
+            tree.set(Nodes.DATA.key(), MAPPER.readTree(parser));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tree;
+    }
+
+}
@@ -37,6 +37,15 @@ public abstract class SelectVisitor extends QueryVisitor {
         }
     }
 
+    /**
+     * Keyset pagination, seek past the {@code after} values of the {@code orderBy} columns, none for the first page.
+     */
+    public void visitSeek(ArrayNode orderBys, ArrayNode after, int size) {
+        if (this.sv != null) {
+            this.sv.visitSeek(orderBys, after, size);
+        }
+    }
+
     public JoinVisitor visitJoin(JsonNode join) {
         if (this.sv != null) {
             return this.sv.visitJoin(join);
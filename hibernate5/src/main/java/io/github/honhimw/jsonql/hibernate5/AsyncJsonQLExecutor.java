@@ -0,0 +1,91 @@
+package io.github.honhimw.jsonql.hibernate5;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.honhimw.jsonql.common.AsyncLimiter;
+import io.github.honhimw.jsonql.common.JsonUtils;
+import io.github.honhimw.jsonql.common.Nodes;
+import io.github.honhimw.jsonql.hibernate5.internal.JsonQLCompiler;
+import io.github.honhimw.jsonql.hibernate5.meta.SQLHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking facade of {@link JsonQLExecutor}, every request executes on the limiter's executor with its own pooled
+ * connection, instead of the shared session connection. Requests are compiled on the calling thread, so the tasks never
+ * touch the session the compiler builds statements on, which is not thread-safe. The steps of a transaction depend on
+ * the results of the steps before them, they compile as they run, serialized by the compiler.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class AsyncJsonQLExecutor {
+
+    private static final ObjectMapper MAPPER = JsonUtils.getObjectMapper();
+
+    private final JsonQLCompiler compiler;
+
+    private final DataSource dataSource;
+
+    private final AsyncLimiter limiter;
+
+    public AsyncJsonQLExecutor(JsonQLCompiler compiler, DataSource dataSource, AsyncLimiter limiter) {
+        this.compiler = Objects.requireNonNull(compiler);
+        this.dataSource = Objects.requireNonNull(dataSource);
+        this.limiter = Objects.requireNonNull(limiter);
+    }
+
+    public CompletableFuture<Object> executeDmlAsync(JsonNode rootNode) {
+        return executeDmlAsync(rootNode, null);
+    }
+
+    public CompletableFuture<Object> executeDmlAsync(JsonNode rootNode, ObjectNode contextNode) {
+        if (JsonQLExecutor.TRANSACTION.equalsIgnoreCase(rootNode.at(Nodes.OPERATION.pointer()).asText())) {
+            return limiter.submit(() -> {
+                try (Connection connection = dataSource.getConnection()) {
+                    return JsonQLExecutor.execute(rootNode, contextNode, compiler, connection, this::countAsync);
+                }
+            });
+        }
+        List<SQLHolder> sqlHolders;
+        try {
+            sqlHolders = compiler.compile(rootNode, contextNode);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return limiter.submit(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                return JsonQLExecutor.executeCompiled(rootNode, sqlHolders, compiler, connection, this::countAsync);
+            }
+        });
+    }
+
+    public CompletableFuture<Object> executeDmlAsync(String jsonData) throws JsonProcessingException {
+        return executeDmlAsync(MAPPER.readTree(jsonData));
+    }
+
+    /**
+     * The count query of a parallel paged select takes a free slot of the limiter or none at all, waiting for one
+     * while holding a connection could starve the pool.
+     */
+    private CompletableFuture<List<Map<String, Object>>> countAsync(SQLHolder countHolder) {
+        return limiter.trySubmit(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                return JsonQLExecutor.executeDmlQuery(countHolder, connection);
+            }
+        });
+    }
+
+    public AsyncLimiter getLimiter() {
+        return limiter;
+    }
+
+}
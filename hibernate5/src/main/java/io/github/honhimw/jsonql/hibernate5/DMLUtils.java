@@ -4,7 +4,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.github.honhimw.jsonql.common.FakePreparedStatement;
+import io.github.honhimw.jsonql.common.JsonQLMetrics;
 import io.github.honhimw.jsonql.common.JsonUtils;
+import io.github.honhimw.jsonql.common.Metrics;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.IteratorUtils;
@@ -70,28 +72,68 @@ public class DMLUtils {
 
     private final Table table;
 
+    private final long schemaVersion;
+
     private EntityType<Object> entityType;
 
     private Dialect dialect;
 
-    private int firstPageNumber = 1;
-
     public static DMLUtils getInstance(EntityManager em, Table table) {
         return getInstance(em, table, MetadataExtractorIntegrator.INSTANCE);
     }
 
+    /**
+     * Initialized instances are cached in the integrator by entity manager and table instance, reused as long as
+     * the table structure is unchanged. Tenants of a shared bootstrap use the same integrator, and tables of the
+     * same name may live in different schemas, so neither the name nor {@link Table#equals} identifies them.
+     */
     public static DMLUtils getInstance(EntityManager em, Table table, MetadataExtractorIntegrator integrator) {
-        return new DMLUtils(em, table, integrator);
+        long schemaVersion = schemaVersion(table);
+        CacheKey cacheKey = new CacheKey(em, table);
+        DMLUtils dmlUtils = integrator.getDmlUtilsCache().getIfPresent(cacheKey);
+        if (Objects.isNull(dmlUtils) || dmlUtils.schemaVersion != schemaVersion) {
+            dmlUtils = new DMLUtils(em, table, integrator, schemaVersion);
+            integrator.getDmlUtilsCache().put(cacheKey, dmlUtils);
+        }
+        return dmlUtils;
     }
 
-    private DMLUtils(EntityManager em, Table table, MetadataExtractorIntegrator integrator) {
+    /**
+     * Drop the cached instances of every table with the given name.
+     */
+    public static void invalidate(MetadataExtractorIntegrator integrator, String tableName) {
+        integrator.getDmlUtilsCache().asMap().keySet().removeIf(cacheKey -> StringUtils.equals(cacheKey.table().getName(), tableName));
+    }
+
+    private DMLUtils(EntityManager em, Table table, MetadataExtractorIntegrator integrator, long schemaVersion) {
         this.em = em;
         this.table = table;
+        this.schemaVersion = schemaVersion;
         init(integrator);
     }
 
-    public void setFirstPageNumber(int firstPageNumber) {
-        this.firstPageNumber = firstPageNumber;
+    /**
+     * Tables are mutable, e.g. joins add foreign keys to the cached table, so fingerprint what the entity is built from.
+     */
+    private static long schemaVersion(Table table) {
+        long version = table.getColumnSpan();
+        Iterator<org.hibernate.mapping.Column> columnIterator = table.getColumnIterator();
+        while (columnIterator.hasNext()) {
+            org.hibernate.mapping.Column column = columnIterator.next();
+            version = 31 * version + Objects.hash(column.getName(), column.isNullable(), System.identityHashCode(column.getValue()));
+        }
+        PrimaryKey primaryKey = table.getPrimaryKey();
+        if (Objects.nonNull(primaryKey)) {
+            version = 31 * version + primaryKey.getColumnSpan();
+        }
+        for (org.hibernate.mapping.ForeignKey foreignKey : table.getForeignKeys().values()) {
+            Table referencedTable = foreignKey.getReferencedTable();
+            version = 31 * version + Objects.hash(foreignKey.getName(), System.identityHashCode(referencedTable));
+            if (Objects.nonNull(referencedTable)) {
+                version = 31 * version + referencedTable.getColumnSpan();
+            }
+        }
+        return version;
     }
 
     public CriteriaBuilder getCriteriaBuilder() {
@@ -99,6 +141,13 @@ public class DMLUtils {
     }
 
     public SelectBuilder select() {
+        return select(1);
+    }
+
+    /**
+     * @param firstPageNumber page number of the first page, e.g. 0 for zero-based paging
+     */
+    public SelectBuilder select(int firstPageNumber) {
         return new SelectBuilder(dialect, em, entityType, firstPageNumber);
     }
 
@@ -325,11 +374,15 @@ public class DMLUtils {
         }
 
         private Tuple2<String, List<Object>> jdbcQL(DelegateCriteriaQuery<?> criteriaQuery, boolean limit) {
+            long start = Metrics.start();
             Tuple2<String, Map<String, Object>> stringMapTuple2 = jpaQL(criteriaQuery);
+            Metrics.phase(JsonQLMetrics.Phase.CRITERIA, start);
             String jpaQL = stringMapTuple2._1();
             Map<String, Object> params = stringMapTuple2._2();
 
+            start = Metrics.start();
             Tuple2<String, List<Object>> sqlNArgs = sqlTemplate(jpaQL, params);
+            Metrics.phase(JsonQLMetrics.Phase.TRANSLATE, start);
             String jdbcQL = sqlNArgs._1();
             List<Object> parameters = sqlNArgs._2();
 
@@ -634,10 +687,14 @@ public class DMLUtils {
         }
 
         private Tuple2<String, List<Object>> jdbcQL(DelegateCriteriaUpdate<?> criteriaUpdate) {
+            long start = Metrics.start();
             Tuple2<String, Map<String, Object>> stringMapTuple2 = jpaQL(criteriaUpdate);
+            Metrics.phase(JsonQLMetrics.Phase.CRITERIA, start);
             String jpaQL = stringMapTuple2._1();
             Map<String, Object> params = stringMapTuple2._2();
+            start = Metrics.start();
             Tuple2<String, List<Object>> sqlNArgs = sqlTemplate(jpaQL, params);
+            Metrics.phase(JsonQLMetrics.Phase.TRANSLATE, start);
             if (log.isDebugEnabled()) {
                 log.debug("jdbcQL: {}", sqlNArgs._1());
             }
@@ -737,10 +794,14 @@ public class DMLUtils {
         }
 
         private Tuple2<String, List<Object>> jdbcQL(CriteriaInsertImpl<?> criteriaInsert) {
+            long start = Metrics.start();
             Tuple2<String, Map<String, Object>> stringMapTuple2 = jpaQL(criteriaInsert);
+            Metrics.phase(JsonQLMetrics.Phase.CRITERIA, start);
             String jpaQL = stringMapTuple2._1();
             Map<String, Object> params = stringMapTuple2._2();
+            start = Metrics.start();
             Tuple2<String, List<Object>> sqlNArgs = sqlTemplate(jpaQL, params);
+            Metrics.phase(JsonQLMetrics.Phase.TRANSLATE, start);
             if (log.isDebugEnabled()) {
                 log.debug("jdbcQL: {}", sqlNArgs._1());
             }
@@ -875,10 +936,14 @@ public class DMLUtils {
                         .append(alias);
                 }
             };
+            long start = Metrics.start();
             Tuple2<String, Map<String, Object>> stringMapTuple2 = jpaQL(renderRoot);
+            Metrics.phase(JsonQLMetrics.Phase.CRITERIA, start);
             String jpaQL = stringMapTuple2._1();
             Map<String, Object> params = stringMapTuple2._2();
+            start = Metrics.start();
             Tuple2<String, List<Object>> sqlNArgs = sqlTemplate(jpaQL, params);
+            Metrics.phase(JsonQLMetrics.Phase.TRANSLATE, start);
             if (log.isDebugEnabled()) {
                 log.debug("jdbcQL: {}", sqlNArgs._1());
             }
@@ -1168,4 +1233,21 @@ public class DMLUtils {
         }
     }
 
+    /**
+     * Compared by identity, an entity manager per tenant and a table per schema.
+     */
+    record CacheKey(EntityManager em, Table table) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CacheKey other && other.em == em && other.table == table;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(em) + System.identityHashCode(table);
+        }
+
+    }
+
 }
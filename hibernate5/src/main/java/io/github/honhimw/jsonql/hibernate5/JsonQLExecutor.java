@@ -1,20 +1,37 @@
 package io.github.honhimw.jsonql.hibernate5;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.honhimw.jsonql.common.CountEstimator;
+import io.github.honhimw.jsonql.common.JsonQLMetrics;
 import io.github.honhimw.jsonql.common.JsonUtils;
+import io.github.honhimw.jsonql.common.KeysetCursor;
+import io.github.honhimw.jsonql.common.Metrics;
 import io.github.honhimw.jsonql.common.Nodes;
+import io.github.honhimw.jsonql.common.ReplicaRouter;
+import io.github.honhimw.jsonql.common.RequestEvent;
+import io.github.honhimw.jsonql.common.ResultCache;
+import io.github.honhimw.jsonql.common.StreamingRequest;
 import io.github.honhimw.jsonql.hibernate5.internal.JsonQLCompiler;
 import io.github.honhimw.jsonql.hibernate5.meta.SQLHolder;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.jdbc.ReturningWork;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * @author hon_him
@@ -26,37 +43,435 @@ public class JsonQLExecutor {
 
     private static final ObjectMapper MAPPER = JsonUtils.getObjectMapper();
 
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    public static final long DEFAULT_ESTIMATE_THRESHOLD = 100_000;
+
+    public static final String TRANSACTION = "transaction";
+
     private final JsonQLCompiler compiler;
 
+    private final ReplicaRouter replicaRouter;
+
+    private final Object session;
+
     public JsonQLExecutor(JsonQLCompiler compiler) {
+        this(compiler, null);
+    }
+
+    /**
+     * @param replicaRouter routes selects to read replicas, writes and transactions stay on the primary, nullable
+     */
+    public JsonQLExecutor(JsonQLCompiler compiler, ReplicaRouter replicaRouter) {
+        this(compiler, replicaRouter, null);
+    }
+
+    /**
+     * @param session reads its own writes, see {@link ReplicaRouter#written(Object)}, e.g. a user id shared by the
+     *                executors of the user's requests, this executor if null
+     */
+    public JsonQLExecutor(JsonQLCompiler compiler, ReplicaRouter replicaRouter, Object session) {
         this.compiler = compiler;
+        this.replicaRouter = replicaRouter;
+        this.session = Objects.nonNull(session) ? session : this;
     }
 
     public Object executeDml(JsonNode rootNode) {
-        return compiler.getEm().unwrap(SharedSessionContractImplementor.class).doReturningWork(connection -> execute(rootNode, compiler, connection));
+        return compiler.getEm().unwrap(SharedSessionContractImplementor.class).doReturningWork(connection ->
+            route(rootNode, connection, (_connection, replica) -> execute(rootNode, null, compiler, _connection, null, !replica)));
     }
 
     public Object executeDml(String jsonData) throws JsonProcessingException {
-        JsonNode rootNode = MAPPER.readTree(jsonData);
-        return executeDml(rootNode);
+        long start = Metrics.start();
+        StreamingRequest request = StreamingRequest.read(jsonData);
+        Metrics.phase(JsonQLMetrics.Phase.PARSE, start);
+        if (request.isBatch()) {
+            return compiler.getEm().unwrap(SharedSessionContractImplementor.class).doReturningWork(connection ->
+                route(request.getRootNode(), connection, (_connection, replica) -> execute(request, compiler, _connection)));
+        }
+        return executeDml(request.toTree());
+    }
+
+    /**
+     * Streaming select, rows are handed to the consumer one at a time instead of being collected.
+     * Pagination is respected but the count query is skipped.
+     *
+     * @return number of rows consumed
+     */
+    public long executeDmlStream(JsonNode rootNode, Consumer<Map<String, Object>> consumer) {
+        return executeDmlStream(rootNode, DEFAULT_FETCH_SIZE, consumer);
+    }
+
+    public long executeDmlStream(JsonNode rootNode, int fetchSize, Consumer<Map<String, Object>> consumer) {
+        String operation = rootNode.at(Nodes.OPERATION.pointer()).asText();
+        if (!"select".equalsIgnoreCase(operation)) {
+            throw new IllegalArgumentException("Only select could be streamed, but [%s] is provided.".formatted(operation));
+        }
+        return (Long) compiler.getEm().unwrap(SharedSessionContractImplementor.class).doReturningWork(connection -> route(rootNode, connection, (_connection, replica) ->
+            instrument(operation, rootNode.at(Nodes.TABLE.pointer()).asText(null), compiler, _connection, __connection -> {
+                try (Stream<Map<String, Object>> rows = executeDmlQueryStream(compiler.compile(rootNode).get(0), fetchSize, __connection)) {
+                    long count = 0;
+                    Iterator<Map<String, Object>> iterator = rows.iterator();
+                    while (iterator.hasNext()) {
+                        consumer.accept(iterator.next());
+                        count++;
+                    }
+                    return count;
+                }
+            })));
+    }
+
+    /**
+     * Write the result to the generator, rows of a plain select are written from the {@link ResultSet} without
+     * intermediate maps. The output is the same JSON as serializing the result of {@link #executeDml(JsonNode)}.
+     */
+    public void executeDml(JsonNode rootNode, JsonGenerator generator) {
+        compiler.getEm().unwrap(SharedSessionContractImplementor.class).doWork(connection -> route(rootNode, connection, (_connection, replica) -> {
+            try {
+                execute(rootNode, compiler, _connection, generator, !replica);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }));
+    }
+
+    public void executeDml(JsonNode rootNode, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = MAPPER.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            executeDml(rootNode, generator);
+        }
+    }
+
+    /**
+     * Run a select on a read replica, unless the primary connection is in a transaction, the session wrote within the
+     * read-your-writes window or no replica hands out a connection. Anything else runs on the primary and opens the
+     * read-your-writes window of the session.
+     */
+    private <T> T route(JsonNode rootNode, Connection primary, RoutedWork<T> work) throws SQLException {
+        if (Objects.isNull(replicaRouter)) {
+            return work.execute(primary, false);
+        }
+        if (!"select".equalsIgnoreCase(rootNode.at(Nodes.OPERATION.pointer()).asText())) {
+            try {
+                return work.execute(primary, false);
+            } finally {
+                replicaRouter.written(session);
+            }
+        }
+        if (!primary.getAutoCommit()) {
+            return work.execute(primary, false);
+        }
+        try (ReplicaRouter.Lease lease = replicaRouter.acquire(session)) {
+            return Objects.nonNull(lease) ? work.execute(lease.connection(), true) : work.execute(primary, false);
+        }
+    }
+
+    /**
+     * Same as {@link #execute(JsonNode, JsonQLCompiler, Connection)} with the result written to the generator, see
+     * {@link #isStreamable} for the selects whose rows are written straight from the {@link ResultSet}.
+     */
+    public static void execute(JsonNode rootNode, JsonQLCompiler compiler, Connection connection, JsonGenerator generator) throws SQLException, IOException {
+        execute(rootNode, compiler, connection, generator, true);
+    }
+
+    private static void execute(JsonNode rootNode, JsonQLCompiler compiler, Connection connection, JsonGenerator generator, boolean cacheable) throws SQLException, IOException {
+        if (Objects.isNull(generator.getCodec())) {
+            generator.setCodec(MAPPER);
+        }
+        String operation = rootNode.at(Nodes.OPERATION.pointer()).asText();
+        try {
+            instrument(operation, rootNode.at(Nodes.TABLE.pointer()).asText(null), compiler, connection, _connection -> {
+                try {
+                    if (isStreamable(operation, rootNode, compiler, _connection, cacheable)) {
+                        return executeDmlQuery(rootNode, compiler.compile(rootNode), _connection, generator, null);
+                    }
+                    Object result = doExecute(operation, rootNode, null, null, compiler, _connection, null, cacheable);
+                    generator.writeObject(result);
+                    return result;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * A select is written by {@link #executeDmlQuery(JsonNode, List, Connection, JsonGenerator, Function)}, unless its
+     * result is cached, a cached result is shared between callers.
+     */
+    private static boolean isStreamable(String operation, JsonNode rootNode, JsonQLCompiler compiler, Connection connection, boolean cacheable) throws SQLException {
+        if (!"select".equalsIgnoreCase(operation)) {
+            return false;
+        }
+        ResultCache resultCache = compiler.getResultCache();
+        return !cacheable || Objects.isNull(resultCache) || !connection.getAutoCommit() || !resultCache.caches(ResultCache.readTables(rootNode));
     }
 
     public static Object execute(String json, JsonQLCompiler compiler, Connection connection) throws JsonProcessingException, SQLException {
-        JsonNode jsonNode = MAPPER.readTree(json);
-        return execute(jsonNode, compiler, connection);
+        long start = Metrics.start();
+        StreamingRequest request = StreamingRequest.read(json);
+        Metrics.phase(JsonQLMetrics.Phase.PARSE, start);
+        return execute(request, compiler, connection);
+    }
+
+    /**
+     * The rows of a streamed batch insert are compiled and sent {@code batchSize} at a time, so at most one batch of
+     * them is materialized. The batches run in one transaction, unless auto-commit is already disabled.
+     */
+    public static Object execute(StreamingRequest request, JsonQLCompiler compiler, Connection connection) throws SQLException {
+        if (!request.isBatch()) {
+            return execute(request.toTree(), compiler, connection);
+        }
+        ObjectNode rootNode = request.getRootNode();
+        return instrument("insert", rootNode.at(Nodes.TABLE.pointer()).asText(null), compiler, connection, _connection -> {
+            int batchSize = rootNode.at(Nodes.BATCH_SIZE.pointer()).asInt(DEFAULT_BATCH_SIZE);
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("Value of `batchSize` must be positive.");
+            }
+            Iterator<JsonNode> rows = request.rows();
+            CompileUtils._assert(rows.hasNext(), "batch insert requires at least one row.");
+            try {
+                return inTransaction(_connection, __connection -> {
+                    List<Object> results = new ArrayList<>();
+                    while (rows.hasNext()) {
+                        results.addAll(executeDmlInsertBatch(compiler.compileRows(rootNode, rows, batchSize, null), batchSize, __connection));
+                    }
+                    return results;
+                });
+            } finally {
+                invalidateResults(rootNode, compiler);
+            }
+        });
     }
 
     public static Object execute(JsonNode rootNode, JsonQLCompiler compiler, Connection connection) throws SQLException {
-        String operation = rootNode.at(Nodes.OPERATION.path()).asText();
-        return switch (operation.toLowerCase()) {
-            case "insert" -> executeDmlInsert(compiler.compile(rootNode).get(0), connection);
-            case "delete", "update", "logic_delete" -> {
-                int effectMaxRows = rootNode.at(Nodes.EFFECT_MAX_ROWS.path()).asInt(1);
-                yield executeDmlUpdate(compiler.compile(rootNode).get(0), effectMaxRows, connection);
+        return execute(rootNode, null, compiler, connection);
+    }
+
+    public static Object execute(JsonNode rootNode, ObjectNode contextNode, JsonQLCompiler compiler, Connection connection) throws SQLException {
+        return execute(rootNode, contextNode, compiler, connection, null);
+    }
+
+    /**
+     * @param countRunner runs the count query of a {@code "countMode": "parallel"} select on another connection,
+     *                    returns null if it can not, nullable
+     */
+    public static Object execute(JsonNode rootNode, ObjectNode contextNode, JsonQLCompiler compiler, Connection connection,
+                                 Function<SQLHolder, CompletableFuture<List<Map<String, Object>>>> countRunner) throws SQLException {
+        return execute(rootNode, contextNode, compiler, connection, countRunner, true);
+    }
+
+    /**
+     * @param cacheable false to bypass the {@link ResultCache}, e.g. for a select on a read replica
+     */
+    private static Object execute(JsonNode rootNode, ObjectNode contextNode, JsonQLCompiler compiler, Connection connection,
+                                  Function<SQLHolder, CompletableFuture<List<Map<String, Object>>>> countRunner, boolean cacheable) throws SQLException {
+        String operation = rootNode.at(Nodes.OPERATION.pointer()).asText();
+        return instrument(operation, rootNode.at(Nodes.TABLE.pointer()).asText(null), compiler, connection,
+            _connection -> doExecute(operation, rootNode, contextNode, null, compiler, _connection, countRunner, cacheable));
+    }
+
+    /**
+     * Same as {@link #execute(JsonNode, ObjectNode, JsonQLCompiler, Connection, Function)} with the statements
+     * compiled from the request beforehand, e.g. on another thread than the one executing them. A transaction can not
+     * be compiled beforehand, its steps depend on the results of the steps before them.
+     *
+     * @param sqlHolders compiled by {@link JsonQLCompiler#compile(JsonNode, ObjectNode)} from the request
+     */
+    public static Object executeCompiled(JsonNode rootNode, List<SQLHolder> sqlHolders, JsonQLCompiler compiler, Connection connection,
+                                         Function<SQLHolder, CompletableFuture<List<Map<String, Object>>>> countRunner) throws SQLException {
+        String operation = rootNode.at(Nodes.OPERATION.pointer()).asText();
+        if (TRANSACTION.equalsIgnoreCase(operation)) {
+            throw new IllegalArgumentException("transaction can not be compiled beforehand.");
+        }
+        Objects.requireNonNull(sqlHolders);
+        return instrument(operation, rootNode.at(Nodes.TABLE.pointer()).asText(null), compiler, connection,
+            _connection -> doExecute(operation, rootNode, null, sqlHolders, compiler, _connection, countRunner, true));
+    }
+
+    /**
+     * Report the request to the installed {@link JsonQLMetrics} and {@link RequestEvent}, if any.
+     */
+    private static Object instrument(String operation, String table, JsonQLCompiler compiler, Connection connection, ReturningWork<Object> work) throws SQLException {
+        RequestEvent event = RequestEvent.begin();
+        if (!Metrics.enabled() && Objects.isNull(event)) {
+            return work.execute(connection);
+        }
+        String dataSourceId = compiler.getIntegrator().getDataSourceId();
+        JsonQLMetrics metrics = Metrics.get();
+        long start = System.nanoTime();
+        boolean success = false;
+        long rows = 0;
+        try {
+            Object result = work.execute(connection);
+            success = true;
+            if (!TRANSACTION.equalsIgnoreCase(operation)) {
+                rows = rows(operation, result);
+                metrics.recordRows(operation.toLowerCase(), table, dataSourceId, rows);
             }
-            case "select" -> executeDmlQuery(compiler.compile(rootNode), connection);
-            default -> throw new IllegalArgumentException("Invalid operation: " + operation);
-        };
+            return result;
+        } finally {
+            metrics.recordRequest(operation.toLowerCase(), table, dataSourceId, System.nanoTime() - start, success);
+            RequestEvent.end(event, operation.toLowerCase(), table, dataSourceId, rows);
+        }
+    }
+
+    /**
+     * @param compiled statements compiled beforehand, compiled here if null
+     */
+    private static Object doExecute(String operation, JsonNode rootNode, ObjectNode contextNode, List<SQLHolder> compiled, JsonQLCompiler compiler, Connection connection,
+                                    Function<SQLHolder, CompletableFuture<List<Map<String, Object>>>> countRunner, boolean cacheable) throws SQLException {
+        try {
+            return switch (operation.toLowerCase()) {
+                case TRANSACTION -> executeTransaction(rootNode, contextNode, compiler, connection);
+                case "insert" -> {
+                    List<SQLHolder> inserts = Objects.nonNull(compiled) ? compiled : compiler.compile(rootNode, contextNode);
+                    if (rootNode.at(Nodes.DATA.pointer()).isArray()) {
+                        int batchSize = rootNode.at(Nodes.BATCH_SIZE.pointer()).asInt(DEFAULT_BATCH_SIZE);
+                        // all rows or none, like a streamed batch insert
+                        yield inTransaction(connection, _connection -> executeDmlInsertBatch(inserts, batchSize, _connection));
+                    }
+                    yield executeDmlInsert(inserts.get(0), connection);
+                }
+                case "delete", "update", "logic_delete" -> {
+                    int effectMaxRows = rootNode.at(Nodes.EFFECT_MAX_ROWS.pointer()).asInt(1);
+                    List<SQLHolder> updates = Objects.nonNull(compiled) ? compiled : compiler.compile(rootNode, contextNode);
+                    yield executeDmlUpdate(updates.get(0), effectMaxRows, connection);
+                }
+                case "select" -> {
+                    List<SQLHolder> sqlHolders = Objects.nonNull(compiled) ? compiled : compiler.compile(rootNode, contextNode);
+                    ResultCache resultCache = compiler.getResultCache();
+                    // within a transaction the select may read rows that are never committed, a replica may lag behind
+                    // the writes that invalidate the cache
+                    if (!cacheable || Objects.isNull(resultCache) || !connection.getAutoCommit()) {
+                        yield executeSelect(rootNode, sqlHolders, connection, countRunner);
+                    }
+                    // the count mode and keyset paging shape the result beyond the compiled statements
+                    List<Object> key = new ArrayList<>(sqlHolders.size() + 2);
+                    key.add(rootNode.at(Nodes.COUNT_MODE.pointer()).asText().toLowerCase());
+                    key.add(KeysetCursor.isKeyset(rootNode));
+                    key.addAll(sqlHolders);
+                    yield resultCache.get(ResultCache.readTables(rootNode), key, () -> executeSelect(rootNode, sqlHolders, connection, countRunner));
+                }
+                default -> throw new IllegalArgumentException("Invalid operation: " + operation);
+            };
+        } finally {
+            // also on failure, the request may have written within a transaction it only joined
+            invalidateResults(rootNode, compiler);
+        }
+    }
+
+    private static Object executeSelect(JsonNode rootNode, List<SQLHolder> sqlHolders, Connection connection,
+                                        Function<SQLHolder, CompletableFuture<List<Map<String, Object>>>> countRunner) throws SQLException {
+        if (KeysetCursor.isKeyset(rootNode)) {
+            return executeDmlSeekQuery(rootNode, sqlHolders.get(0), connection);
+        }
+        if (sqlHolders.size() > 1) {
+            return executeDmlPageQuery(rootNode, sqlHolders, connection, countRunner);
+        }
+        return executeDmlQuery(sqlHolders, connection);
+    }
+
+    /**
+     * Invalidate cached results of the table written by the request, if any.
+     */
+    private static void invalidateResults(JsonNode rootNode, JsonQLCompiler compiler) {
+        ResultCache resultCache = compiler.getResultCache();
+        if (Objects.isNull(resultCache)) {
+            return;
+        }
+        String operation = rootNode.at(Nodes.OPERATION.pointer()).asText();
+        if (StringUtils.equalsAnyIgnoreCase(operation, "insert", "update", "delete", "logic_delete")) {
+            resultCache.invalidate(rootNode.at(Nodes.TABLE.pointer()).asText(null));
+        }
+    }
+
+    /**
+     * Rows returned by a select or affected by a write, an insert returns a generated key per row.
+     */
+    private static long rows(String operation, Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map && map.get("list") instanceof Collection<?> list) {
+            return list.size();
+        }
+        if (result instanceof Number number) {
+            if ("insert".equalsIgnoreCase(operation)) {
+                return number.longValue() == 0 ? 0 : 1;
+            }
+            return number.longValue();
+        }
+        return 0;
+    }
+
+    /**
+     * Run the steps in order on the same connection and in one transaction. The result of a step is put into the
+     * context by its {@code name}(default {@code step<index>}), so later steps can reference it, e.g. {@code _{order}_}.
+     * Joins the current transaction instead if auto-commit is already disabled. A dry run step({@code effectMaxRows}
+     * 0) is rejected, its rollback would undo the steps before it.
+     *
+     * @return results of the steps by name
+     */
+    public static Map<String, Object> executeTransaction(JsonNode rootNode, ObjectNode contextNode, JsonQLCompiler compiler, Connection connection) throws SQLException {
+        JsonNode stepsNode = rootNode.at(Nodes.STEPS.pointer());
+        if (!stepsNode.isArray()) {
+            throw new IllegalArgumentException("`steps` of a transaction must be an array.");
+        }
+        for (JsonNode stepNode : stepsNode) {
+            // a dry run rolls back the connection, i.e. the steps before it as well
+            if (stepNode.at(Nodes.EFFECT_MAX_ROWS.pointer()).asInt(1) == 0) {
+                throw new IllegalArgumentException("`effectMaxRows` 0 is not supported in transaction steps.");
+            }
+        }
+        ObjectNode stepContext = Objects.nonNull(contextNode) ? contextNode.deepCopy() : MAPPER.createObjectNode();
+        try {
+            return inTransaction(connection, _connection -> {
+                Map<String, Object> results = new LinkedHashMap<>();
+                for (int i = 0; i < stepsNode.size(); i++) {
+                    JsonNode stepNode = stepsNode.get(i);
+                    if (TRANSACTION.equalsIgnoreCase(stepNode.at(Nodes.OPERATION.pointer()).asText())) {
+                        throw new IllegalArgumentException("nested transaction is not supported.");
+                    }
+                    String name = stepNode.at(Nodes.NAME.pointer()).asText("step" + i);
+                    Object result = execute(stepNode, stepContext, compiler, _connection);
+                    results.put(name, result);
+                    stepContext.set(name, MAPPER.valueToTree(result));
+                }
+                return results;
+            });
+        } finally {
+            // again once committed, a select in between could have read the rows before they were committed
+            for (JsonNode stepNode : stepsNode) {
+                invalidateResults(stepNode, compiler);
+            }
+        }
+    }
+
+    /**
+     * Run the work in one transaction, committed on success and rolled back on failure. Joins the current transaction
+     * instead if auto-commit is already disabled.
+     */
+    private static <T> T inTransaction(Connection connection, ReturningWork<T> work) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            return work.execute(connection);
+        }
+        connection.setAutoCommit(false);
+        try {
+            T result = work.execute(connection);
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
     }
 
     public static Object executeDmlInsert(SQLHolder insert, Connection connection) throws SQLException {
@@ -66,15 +481,18 @@ public class JsonQLExecutor {
         String sql = insert.sql();
         List<Object> parameters = insert.parameters();
 
+        long start = Metrics.start();
         try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            for (int i = 0; i < parameters.size(); i++) {
-                statement.setObject(i + 1, parameters.get(i));
-            }
+            bind(statement, parameters);
+            Metrics.phase(JsonQLMetrics.Phase.PREPARE, start);
+            start = Metrics.start();
             int count = statement.executeUpdate();
+            Metrics.phase(JsonQLMetrics.Phase.EXECUTE, start);
             if (0 < count) {
-                ResultSet rs = statement.getGeneratedKeys();
-                if (rs.next()) {
-                    return rs.getInt(1);
+                try (ResultSet rs = statement.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        return rs.getInt(1);
+                    }
                 }
                 return 1;
             }
@@ -83,6 +501,56 @@ public class JsonQLExecutor {
 
     }
 
+    /**
+     * Consecutive rows sharing the same SQL are sent with {@link PreparedStatement#executeBatch()}, at most
+     * {@code batchSize} rows per round trip.
+     *
+     * @return generated key of each row, or 1/0 if the driver returns no keys
+     */
+    public static List<Object> executeDmlInsertBatch(List<SQLHolder> inserts, int batchSize, Connection connection) throws SQLException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Value of `batchSize` must be positive.");
+        }
+        List<Object> results = new ArrayList<>(inserts.size());
+        int from = 0;
+        while (from < inserts.size()) {
+            String sql = inserts.get(from).sql();
+            int to = from + 1;
+            while (to < inserts.size() && to - from < batchSize && StringUtils.equals(sql, inserts.get(to).sql())) {
+                to++;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("SQL: {}; Batch: [{}]", sql, to - from);
+            }
+            long start = Metrics.start();
+            try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (int i = from; i < to; i++) {
+                    bind(statement, inserts.get(i).parameters());
+                    statement.addBatch();
+                }
+                Metrics.phase(JsonQLMetrics.Phase.PREPARE, start);
+                start = Metrics.start();
+                int[] counts = statement.executeBatch();
+                Metrics.phase(JsonQLMetrics.Phase.EXECUTE, start);
+                List<Object> keys = new ArrayList<>(counts.length);
+                try (ResultSet rs = statement.getGeneratedKeys()) {
+                    while (rs.next()) {
+                        keys.add(rs.getInt(1));
+                    }
+                }
+                for (int i = 0; i < counts.length; i++) {
+                    if (i < keys.size()) {
+                        results.add(keys.get(i));
+                    } else {
+                        results.add(0 < counts[i] || counts[i] == Statement.SUCCESS_NO_INFO ? 1 : 0);
+                    }
+                }
+            }
+            from = to;
+        }
+        return results;
+    }
+
     public static Object executeDmlUpdate(SQLHolder update, int limit, Connection connection) throws SQLException {
         if (log.isDebugEnabled()) {
             log.debug(update.toString());
@@ -90,11 +558,13 @@ public class JsonQLExecutor {
         String sql = update.sql();
         List<Object> parameters = update.parameters();
 
+        long start = Metrics.start();
         try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            for (int i = 0; i < parameters.size(); i++) {
-                statement.setObject(i + 1, parameters.get(i));
-            }
+            bind(statement, parameters);
+            Metrics.phase(JsonQLMetrics.Phase.PREPARE, start);
+            start = Metrics.start();
             int count = statement.executeUpdate();
+            Metrics.phase(JsonQLMetrics.Phase.EXECUTE, start);
             if (limit > 0) {
                 if (count <= limit) {
                     return count;
@@ -121,28 +591,303 @@ public class JsonQLExecutor {
         boolean needPageSelect = sqlHolders.size() > 1;
         List<List<Map<String, Object>>> resultList = new ArrayList<>();
         for (SQLHolder sqlHolder : sqlHolders) {
-            String sql = sqlHolder.sql();
-            List<Object> parameters = sqlHolder.parameters();
-            try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                ParameterMetaData parameterMetaData = statement.getParameterMetaData();
-                int parameterCount = parameterMetaData.getParameterCount();
-                for (int i = 0; i < parameterCount; i++) {
-                    statement.setObject(i + 1, parameters.get(i));
-                }
-                resultList.add(JDBCUtils.extractResult(statement.executeQuery()));
-            }
+            resultList.add(executeDmlQuery(sqlHolder, connection));
         }
 
         List<Map<String, Object>> mapList = resultList.get(0);
         if (needPageSelect) {
-            List<Map<String, Object>> pageList = resultList.get(1);
-            Map<String, Object> resultMap = new HashMap<>();
-            resultMap.put("total", pageList.get(0).values().stream().findFirst().orElse(null));
-            resultMap.put("list", mapList);
-            return resultMap;
+            return pageResult(resultList.get(1), mapList);
         }
         return mapList;
 
     }
 
+    public static List<Map<String, Object>> executeDmlQuery(SQLHolder sqlHolder, Connection connection) throws SQLException {
+        long start = Metrics.start();
+        try (PreparedStatement statement = connection.prepareStatement(sqlHolder.sql())) {
+            bind(statement, sqlHolder.parameters());
+            Metrics.phase(JsonQLMetrics.Phase.PREPARE, start);
+            start = Metrics.start();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                Metrics.phase(JsonQLMetrics.Phase.EXECUTE, start);
+                start = Metrics.start();
+                List<Map<String, Object>> mapList = JDBCUtils.extractResult(resultSet);
+                Metrics.phase(JsonQLMetrics.Phase.EXTRACT, start);
+                return mapList;
+            }
+        }
+    }
+
+    /**
+     * Page query followed by its count query, by {@code countMode}:
+     * <ul>
+     *     <li>{@code lazy}: the count is skipped when the page comes back short, the total is then known</li>
+     *     <li>{@code parallel}: the count runs on another connection meanwhile, serially if the runner declines</li>
+     *     <li>{@code estimate}: the total is estimated from database statistics, flagged by {@code approximate}, exactly
+     *     counted if the estimate is below {@code estimateThreshold}</li>
+     *     <li>otherwise: one after the other on the given connection</li>
+     * </ul>
+     */
+    @SuppressWarnings("unchecked")
+    public static Object executeDmlPageQuery(JsonNode rootNode, List<SQLHolder> sqlHolders, Connection connection,
+                                             Function<SQLHolder, CompletableFuture<List<Map<String, Object>>>> countRunner) throws SQLException {
+        String countMode = rootNode.at(Nodes.COUNT_MODE.pointer()).asText();
+        switch (Nodes.of(countMode.toLowerCase(), Nodes.COUNT)) {
+            case LAZY -> {
+                if (log.isDebugEnabled()) {
+                    log.debug(sqlHolders.get(0).toString());
+                }
+                List<Map<String, Object>> mapList = executeDmlQuery(sqlHolders.get(0), connection);
+                int page = rootNode.at(Nodes.PAGE.pointer()).asInt(1);
+                int pageSize = rootNode.at(Nodes.PAGE_SIZE.pointer()).asInt(20);
+                // an empty page beyond the first says nothing about the total
+                if (mapList.size() < pageSize && (!mapList.isEmpty() || page == 1)) {
+                    Map<String, Object> resultMap = new HashMap<>();
+                    resultMap.put("total", (long) (page - 1) * pageSize + mapList.size());
+                    resultMap.put("list", mapList);
+                    return resultMap;
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug(sqlHolders.get(1).toString());
+                }
+                return pageResult(executeDmlQuery(sqlHolders.get(1), connection), mapList);
+            }
+            case PARALLEL -> {
+                CompletableFuture<List<Map<String, Object>>> countFuture = Objects.nonNull(countRunner) ? countRunner.apply(sqlHolders.get(1)) : null;
+                if (Objects.isNull(countFuture)) {
+                    return executeDmlQuery(sqlHolders, connection);
+                }
+                if (log.isDebugEnabled()) {
+                    for (SQLHolder sqlHolder : sqlHolders) {
+                        log.debug(sqlHolder.toString());
+                    }
+                }
+                List<Map<String, Object>> mapList = executeDmlQuery(sqlHolders.get(0), connection);
+                return pageResult(awaitCount(countFuture), mapList);
+            }
+            case ESTIMATE -> {
+                long threshold = rootNode.at(Nodes.ESTIMATE_THRESHOLD.pointer()).asLong(DEFAULT_ESTIMATE_THRESHOLD);
+                SQLHolder countHolder = sqlHolders.get(1);
+                Long estimate = CountEstimator.estimate(connection, countHolder.sql(), countHolder.parameters(), rootNode.at(Nodes.TABLE.pointer()).asText(null));
+                Map<String, Object> resultMap;
+                if (Objects.nonNull(estimate) && estimate >= threshold) {
+                    if (log.isDebugEnabled()) {
+                        log.debug(sqlHolders.get(0).toString());
+                    }
+                    resultMap = new HashMap<>();
+                    resultMap.put("total", estimate);
+                    resultMap.put("list", executeDmlQuery(sqlHolders.get(0), connection));
+                    resultMap.put("approximate", true);
+                } else {
+                    // small tables are counted exactly, the estimate is too coarse there
+                    resultMap = (Map<String, Object>) executeDmlQuery(sqlHolders, connection);
+                    resultMap.put("approximate", false);
+                }
+                return resultMap;
+            }
+            default -> {
+                return executeDmlQuery(sqlHolders, connection);
+            }
+        }
+    }
+
+    /**
+     * Keyset page, {@code cursor} of the result continues after its last row, null on the last page.
+     */
+    public static Map<String, Object> executeDmlSeekQuery(JsonNode rootNode, SQLHolder sqlHolder, Connection connection) throws SQLException {
+        if (log.isDebugEnabled()) {
+            log.debug(sqlHolder.toString());
+        }
+        List<Map<String, Object>> mapList = executeDmlQuery(sqlHolder, connection);
+        int pageSize = rootNode.at(Nodes.PAGE_SIZE.pointer()).asInt(20);
+        Map<String, Object> resultMap = new HashMap<>();
+        resultMap.put("list", mapList);
+        resultMap.put("cursor", KeysetCursor.next(rootNode, mapList, pageSize));
+        return resultMap;
+    }
+
+    private static Map<String, Object> pageResult(List<Map<String, Object>> pageList, List<Map<String, Object>> mapList) {
+        Map<String, Object> resultMap = new HashMap<>();
+        resultMap.put("total", total(pageList));
+        resultMap.put("list", mapList);
+        return resultMap;
+    }
+
+    private static Object total(List<Map<String, Object>> pageList) {
+        return pageList.get(0).values().stream().findFirst().orElse(null);
+    }
+
+    private static List<Map<String, Object>> awaitCount(CompletableFuture<List<Map<String, Object>>> countFuture) throws SQLException {
+        try {
+            return countFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for the count query.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new SQLException("count query failed.", e.getCause());
+        }
+    }
+
+    /**
+     * Same as {@link #executeSelect} with the result written to the generator. Rows of a plain select or a page
+     * counted exactly or in {@code parallel} are written as they are read, the parallel total follows the list. The
+     * cursor of a keyset page comes from its last row and a {@code lazy} or {@code estimate} count depends on the page,
+     * so those rows are collected first.
+     *
+     * @param countRunner see {@link #execute(JsonNode, ObjectNode, JsonQLCompiler, Connection, Function)}, nullable
+     * @return rows written
+     */
+    public static long executeDmlQuery(JsonNode rootNode, List<SQLHolder> sqlHolders, Connection connection, JsonGenerator generator,
+                                       Function<SQLHolder, CompletableFuture<List<Map<String, Object>>>> countRunner) throws SQLException, IOException {
+        Nodes countMode = Nodes.of(rootNode.at(Nodes.COUNT_MODE.pointer()).asText().toLowerCase(), Nodes.COUNT);
+        boolean needPageSelect = sqlHolders.size() > 1;
+        if (KeysetCursor.isKeyset(rootNode) || needPageSelect && (countMode == Nodes.LAZY || countMode == Nodes.ESTIMATE)) {
+            Object result = executeSelect(rootNode, sqlHolders, connection, countRunner);
+            generator.writeObject(result);
+            return rows("select", result);
+        }
+        if (needPageSelect && countMode == Nodes.PARALLEL && Objects.nonNull(countRunner)) {
+            CompletableFuture<List<Map<String, Object>>> countFuture = countRunner.apply(sqlHolders.get(1));
+            if (Objects.nonNull(countFuture)) {
+                if (log.isDebugEnabled()) {
+                    for (SQLHolder sqlHolder : sqlHolders) {
+                        log.debug(sqlHolder.toString());
+                    }
+                }
+                generator.writeStartObject();
+                generator.writeFieldName("list");
+                long rows = writeDmlQuery(sqlHolders.get(0), connection, generator);
+                generator.writeFieldName("total");
+                generator.writeObject(total(awaitCount(countFuture)));
+                generator.writeEndObject();
+                return rows;
+            }
+        }
+        return executeDmlQuery(sqlHolders, connection, generator);
+    }
+
+    /**
+     * Page query preceded by its exact count query on the same connection, whatever the {@code countMode}, see
+     * {@link #executeDmlQuery(JsonNode, List, Connection, JsonGenerator, Function)} for the others.
+     *
+     * @return rows written
+     */
+    public static long executeDmlQuery(List<SQLHolder> sqlHolders, Connection connection, JsonGenerator generator) throws SQLException, IOException {
+        if (log.isDebugEnabled()) {
+            for (SQLHolder sqlHolder : sqlHolders) {
+                log.debug(sqlHolder.toString());
+            }
+        }
+        boolean needPageSelect = sqlHolders.size() > 1;
+        if (needPageSelect) {
+            generator.writeStartObject();
+            generator.writeFieldName("total");
+            generator.writeObject(total(executeDmlQuery(sqlHolders.get(1), connection)));
+            generator.writeFieldName("list");
+        }
+        long rows = writeDmlQuery(sqlHolders.get(0), connection, generator);
+        if (needPageSelect) {
+            generator.writeEndObject();
+        }
+        return rows;
+    }
+
+    private static long writeDmlQuery(SQLHolder sqlHolder, Connection connection, JsonGenerator generator) throws SQLException, IOException {
+        long start = Metrics.start();
+        long rows;
+        try (PreparedStatement statement = connection.prepareStatement(sqlHolder.sql())) {
+            bind(statement, sqlHolder.parameters());
+            Metrics.phase(JsonQLMetrics.Phase.PREPARE, start);
+            start = Metrics.start();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                Metrics.phase(JsonQLMetrics.Phase.EXECUTE, start);
+                start = Metrics.start();
+                rows = JDBCUtils.writeResult(resultSet, generator);
+                Metrics.phase(JsonQLMetrics.Phase.EXTRACT, start);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * The statement is closed when the returned stream is closed, so always consume it with try-with-resources.
+     * Some drivers only fetch {@code fetchSize} rows at a time within a transaction (e.g. PostgreSQL), so auto-commit
+     * is disabled until the stream is closed.
+     */
+    public static Stream<Map<String, Object>> executeDmlQueryStream(SQLHolder sqlHolder, int fetchSize, Connection connection) throws SQLException {
+        if (log.isDebugEnabled()) {
+            log.debug(sqlHolder.toString());
+        }
+        String sql = sqlHolder.sql();
+        List<Object> parameters = sqlHolder.parameters();
+        boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize(connection, fetchSize));
+            bind(statement, parameters);
+            PreparedStatement _statement = statement;
+            return JDBCUtils.streamResult(statement.executeQuery()).onClose(() -> {
+                try {
+                    closeStream(_statement, connection, autoCommit);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            try {
+                closeStream(statement, connection, autoCommit);
+            } catch (SQLException | RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * MySQL Connector/J reads the whole result into memory whatever the fetch size, unless {@code useCursorFetch} is
+     * enabled. {@link Integer#MIN_VALUE} makes it stream the rows one by one instead.
+     */
+    private static int fetchSize(Connection connection, int fetchSize) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        if (StringUtils.containsIgnoreCase(metaData.getDriverName(), "MySQL Connector")
+            && !StringUtils.containsIgnoreCase(metaData.getURL(), "useCursorFetch=true")) {
+            return Integer.MIN_VALUE;
+        }
+        return fetchSize;
+    }
+
+    private static void closeStream(PreparedStatement statement, Connection connection, boolean autoCommit) throws SQLException {
+        try {
+            if (Objects.nonNull(statement)) {
+                statement.close();
+            }
+        } finally {
+            if (autoCommit) {
+                // commits the read-only transaction opened for the stream
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement statement, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            statement.setObject(i + 1, parameters.get(i));
+        }
+    }
+
+    @FunctionalInterface
+    private interface RoutedWork<T> {
+        /**
+         * @param replica whether the connection is of a read replica
+         */
+        T execute(Connection connection, boolean replica) throws SQLException;
+    }
+
 }
@@ -1,5 +1,7 @@
 package io.github.honhimw.jsonql.hibernate5;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.boot.Metadata;
@@ -55,6 +57,16 @@ public class MetadataExtractorIntegrator implements org.hibernate.integrator.spi
 
     private MetadataBuildingContext metadataBuildingContext;
 
+    /**
+     * Derived for a tenant of a shared bootstrap, see {@link #derive}. Its session factory connects to any tenant.
+     */
+    private boolean shared;
+
+    /**
+     * Initialized {@link DMLUtils} by entity manager and table instance, see {@link DMLUtils#getInstance(javax.persistence.EntityManager, org.hibernate.mapping.Table, MetadataExtractorIntegrator)}
+     */
+    private final Cache<DMLUtils.CacheKey, DMLUtils> dmlUtilsCache = CacheBuilder.newBuilder().maximumSize(1024).build();
+
     @Override
     public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
         ServiceRegistry parentServiceRegistry = serviceRegistry.getParentServiceRegistry();
@@ -73,6 +85,23 @@ public class MetadataExtractorIntegrator implements org.hibernate.integrator.spi
         SessionFactoryServiceRegistry serviceRegistry) {
     }
 
+    /**
+     * An integrator over the same bootstrap, for another data source of the same dialect. It has its own
+     * {@code dataSourceId} and {@link DMLUtils} cache, everything else is shared.
+     */
+    public MetadataExtractorIntegrator derive(String dataSourceId) {
+        MetadataExtractorIntegrator derived = new MetadataExtractorIntegrator(dataSourceId);
+        derived.database = database;
+        derived.metadata = metadata;
+        derived.jdbcEnvironment = jdbcEnvironment;
+        derived.bootstrapContext = bootstrapContext;
+        derived.sessionFactory = sessionFactory;
+        derived.inFlightMetadataCollector = getInFlightMetadataCollector();
+        derived.metadataBuildingContext = getMetadataBuildingContext();
+        derived.shared = true;
+        return derived;
+    }
+
     public MetadataBuildingOptions getMetadataBuildingOptions() {
         return bootstrapContext.getMetadataBuildingOptions();
     }
@@ -0,0 +1,183 @@
+package io.github.honhimw.jsonql.hibernate5;
+
+import io.github.honhimw.jsonql.common.JDBCDriverType;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.MultiTenancyStrategy;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.AbstractDataSourceBasedMultiTenantConnectionProviderImpl;
+import org.hibernate.jpa.HibernatePersistenceProvider;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+
+import javax.annotation.Nonnull;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One Hibernate bootstrap shared by the data sources of the same driver and database version. SQL generation only
+ * needs the dialect, type configuration and metamodel of a bootstrap, so data sources register themselves as tenants
+ * of a database multi-tenant {@link SessionFactory} and open their sessions on it, only their pools are their own.
+ * <p>
+ * Hibernate schema tooling of a shared bootstrap connects to any of its tenants, so an
+ * {@link io.github.honhimw.jsonql.hibernate5.ddl.MetadataExtractor} of a tenant requires the tenant's data source and
+ * reads the metadata over it.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+@Slf4j
+public final class SharedBootstrap {
+
+    private static final Map<String, SharedBootstrap> BOOTSTRAPS = new ConcurrentHashMap<>();
+
+    private final String key;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final MetadataExtractorIntegrator integrator;
+
+    private final TenantConnectionProvider connectionProvider;
+
+    private SharedBootstrap(String key, EntityManagerFactory entityManagerFactory, MetadataExtractorIntegrator integrator, TenantConnectionProvider connectionProvider) {
+        this.key = key;
+        this.entityManagerFactory = entityManagerFactory;
+        this.integrator = integrator;
+        this.connectionProvider = connectionProvider;
+    }
+
+    /**
+     * Bootstrap of the given data source's driver and database version, created on first use with the data source
+     * as its first tenant.
+     */
+    public static SharedBootstrap of(JDBCDriverType driverType, String tenantId, DataSource dataSource) {
+        String key = key(driverType, dataSource);
+        while (true) {
+            SharedBootstrap bootstrap = BOOTSTRAPS.computeIfAbsent(key, k -> bootstrap(k, tenantId, dataSource));
+            synchronized (bootstrap.connectionProvider) {
+                // not a bootstrap closed by its last tenant in the meantime
+                if (BOOTSTRAPS.get(key) == bootstrap) {
+                    bootstrap.connectionProvider.register(tenantId, dataSource);
+                    return bootstrap;
+                }
+            }
+        }
+    }
+
+    /**
+     * Session of a tenant, its connections come from the tenant's own data source.
+     */
+    public Session openSession(String tenantId) {
+        return entityManagerFactory.unwrap(SessionFactory.class).withOptions().tenantIdentifier(tenantId).openSession();
+    }
+
+    /**
+     * Integrator of a tenant, sharing the bootstrap but namespacing its tables by the tenant id.
+     */
+    public MetadataExtractorIntegrator integrator(String tenantId) {
+        synchronized (integrator) {
+            return integrator.derive(tenantId);
+        }
+    }
+
+    /**
+     * Remove the tenant if still served by the given data source, the bootstrap is closed with its last tenant.
+     */
+    public void release(String tenantId, DataSource dataSource) {
+        synchronized (connectionProvider) {
+            connectionProvider.unregister(tenantId, dataSource);
+            if (connectionProvider.isEmpty() && BOOTSTRAPS.remove(key, this)) {
+                log.info("close shared bootstrap: {}", key);
+                entityManagerFactory.close();
+            }
+        }
+    }
+
+    public int getTenantCount() {
+        return connectionProvider.size();
+    }
+
+    private static String key(JDBCDriverType driverType, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            return "%s:%s:%d.%d".formatted(driverType, metaData.getDatabaseProductName(), metaData.getDatabaseMajorVersion(), metaData.getDatabaseMinorVersion());
+        } catch (SQLException e) {
+            throw new IllegalStateException("read database version failed.", e);
+        }
+    }
+
+    private static SharedBootstrap bootstrap(String key, String tenantId, DataSource dataSource) {
+        log.info("create shared bootstrap: {}", key);
+        TenantConnectionProvider connectionProvider = new TenantConnectionProvider();
+        // the first tenant serves the JDBC metadata the bootstrap needs
+        connectionProvider.register(tenantId, dataSource);
+        HibernatePersistenceProvider hibernatePersistenceProvider = new HibernatePersistenceProvider();
+        MutablePersistenceUnitInfo info = new MutablePersistenceUnitInfo() {
+            @Override
+            public String getPersistenceUnitName() {
+                return "shared:%s".formatted(key);
+            }
+
+            @Nonnull
+            @Override
+            public ClassLoader getNewTempClassLoader() {
+                return getClass().getClassLoader();
+            }
+        };
+        Map<String, Object> hibernateProperties = new HashMap<>();
+        MetadataExtractorIntegrator integrator = new MetadataExtractorIntegrator();
+        hibernateProperties.put("hibernate.integrator_provider", (IntegratorProvider) () -> Collections.singletonList(integrator));
+        hibernateProperties.put(AvailableSettings.MULTI_TENANT, MultiTenancyStrategy.DATABASE);
+        hibernateProperties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, connectionProvider);
+        hibernateProperties.put(AvailableSettings.SHOW_SQL, "true");
+        EntityManagerFactory entityManagerFactory = hibernatePersistenceProvider.createContainerEntityManagerFactory(info, hibernateProperties);
+        return new SharedBootstrap(key, entityManagerFactory, integrator, connectionProvider);
+    }
+
+    private static class TenantConnectionProvider extends AbstractDataSourceBasedMultiTenantConnectionProviderImpl {
+
+        private final Map<String, DataSource> dataSources = new ConcurrentHashMap<>();
+
+        void register(String tenantId, DataSource dataSource) {
+            dataSources.put(Objects.requireNonNull(tenantId, "tenant id is required by a shared bootstrap."), dataSource);
+        }
+
+        void unregister(String tenantId, DataSource dataSource) {
+            dataSources.remove(tenantId, dataSource);
+        }
+
+        boolean isEmpty() {
+            return dataSources.isEmpty();
+        }
+
+        int size() {
+            return dataSources.size();
+        }
+
+        @Override
+        protected DataSource selectAnyDataSource() {
+            Iterator<DataSource> iterator = dataSources.values().iterator();
+            if (!iterator.hasNext()) {
+                throw new IllegalStateException("shared bootstrap has no tenant.");
+            }
+            return iterator.next();
+        }
+
+        @Override
+        protected DataSource selectDataSource(String tenantIdentifier) {
+            DataSource dataSource = dataSources.get(tenantIdentifier);
+            if (Objects.isNull(dataSource)) {
+                throw new NoSuchElementException("tenant not exists: %s".formatted(tenantIdentifier));
+            }
+            return dataSource;
+        }
+
+    }
+
+}
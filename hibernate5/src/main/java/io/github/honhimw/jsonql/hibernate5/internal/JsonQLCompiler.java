@@ -1,19 +1,34 @@
 package io.github.honhimw.jsonql.hibernate5.internal;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.honhimw.jsonql.common.JsonQLMetrics;
+import io.github.honhimw.jsonql.common.Metrics;
+import io.github.honhimw.jsonql.common.Nodes;
+import io.github.honhimw.jsonql.common.RequestEvent;
+import io.github.honhimw.jsonql.common.ResultCache;
+import io.github.honhimw.jsonql.common.StreamingRequest;
 import io.github.honhimw.jsonql.common.visitor.CRUDVisitor;
+import io.github.honhimw.jsonql.common.visitor.InsertVisitor;
+import io.github.honhimw.jsonql.hibernate5.CompileUtils;
 import io.github.honhimw.jsonql.hibernate5.MetadataExtractorIntegrator;
 import io.github.honhimw.jsonql.hibernate5.meta.SQLHolder;
 import io.github.honhimw.jsonql.hibernate5.meta.TableMetaCache;
 import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
 
 /**
+ * Statements are built on the session of the entity manager, which is not thread-safe, so compiles are serialized on
+ * the compiler.
+ *
  * @author hon_him
  * @since 2024-01-25
  */
@@ -30,6 +45,12 @@ public class JsonQLCompiler {
 
     private Function<CRUDVisitor, CRUDVisitor> customVisitor;
 
+    @Getter
+    private PlanCache planCache;
+
+    @Getter
+    private ResultCache resultCache;
+
     public JsonQLCompiler(EntityManager em, TableMetaCache tableMetaCache) {
         this(em, tableMetaCache, MetadataExtractorIntegrator.INSTANCE);
     }
@@ -43,13 +64,122 @@ public class JsonQLCompiler {
 
     public void acceptVisitor(Function<CRUDVisitor, CRUDVisitor> custom) {
         this.customVisitor = custom;
+        if (Objects.nonNull(planCache)) {
+            planCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Cache compiled plans by request shape, cache hits skip the visitor chain(including custom visitors).
+     */
+    public void acceptPlanCache(PlanCache planCache) {
+        this.planCache = planCache;
+    }
+
+    /**
+     * Cache select results of the executors using this compiler, their writes invalidate the results of their table.
+     */
+    public void acceptResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
     }
 
     public List<SQLHolder> compile(JsonNode rootNode) {
         return compile(rootNode, null);
     }
 
-    public List<SQLHolder> compile(JsonNode rootNode, ObjectNode contextNode) {
+    /**
+     * An insert with an array of rows compiles to one {@link SQLHolder} per row.
+     */
+    public synchronized List<SQLHolder> compile(JsonNode rootNode, ObjectNode contextNode) {
+        long start = Metrics.start();
+        long eventStart = RequestEvent.compileStart();
+        try {
+            JsonNode dataNode = rootNode.at(Nodes.DATA.pointer());
+            List<SQLHolder> sqlHolders;
+            if (dataNode.isArray() && StringUtils.equalsIgnoreCase(rootNode.at(Nodes.OPERATION.pointer()).asText(), InsertVisitor.OPERATOR)) {
+                sqlHolders = compileBatch(rootNode, dataNode, contextNode);
+            } else {
+                sqlHolders = compileSingle(rootNode, contextNode);
+            }
+            RequestEvent.compiled(eventStart, sqlHolders.get(0).sql());
+            return sqlHolders;
+        } finally {
+            Metrics.phase(JsonQLMetrics.Phase.COMPILE, start);
+        }
+    }
+
+    /**
+     * Rows of a streamed batch insert are read from the request as they are compiled.
+     */
+    public List<SQLHolder> compile(StreamingRequest request) {
+        if (!request.isBatch()) {
+            return compile(request.toTree());
+        }
+        Iterator<JsonNode> rows = request.rows();
+        CompileUtils._assert(rows.hasNext(), "batch insert requires at least one row.");
+        return compileRows(request.getRootNode(), rows, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * Compile the next rows of a batch insert, at most {@code limit} of them.
+     *
+     * @param rootNode the insert, its {@code data} is ignored
+     */
+    public synchronized List<SQLHolder> compileRows(JsonNode rootNode, Iterator<JsonNode> rows, int limit, ObjectNode contextNode) {
+        long start = Metrics.start();
+        long eventStart = RequestEvent.compileStart();
+        try {
+            List<SQLHolder> sqlHolders = doCompileRows(rootNode, rows, limit, contextNode);
+            if (!sqlHolders.isEmpty()) {
+                RequestEvent.compiled(eventStart, sqlHolders.get(0).sql());
+            }
+            return sqlHolders;
+        } finally {
+            Metrics.phase(JsonQLMetrics.Phase.COMPILE, start);
+        }
+    }
+
+    private List<SQLHolder> compileBatch(JsonNode rootNode, JsonNode dataNode, ObjectNode contextNode) {
+        CompileUtils._assert(!dataNode.isEmpty(), "batch insert requires at least one row.");
+        return doCompileRows(rootNode, dataNode.iterator(), Integer.MAX_VALUE, contextNode);
+    }
+
+    private List<SQLHolder> doCompileRows(JsonNode rootNode, Iterator<JsonNode> rows, int limit, ObjectNode contextNode) {
+        // every field but the rows, which may be large
+        ObjectNode rowNode = JsonNodeFactory.instance.objectNode();
+        rootNode.fields().forEachRemaining(field -> {
+            if (!Nodes.DATA.key().equals(field.getKey())) {
+                rowNode.set(field.getKey(), field.getValue().deepCopy());
+            }
+        });
+        List<SQLHolder> sqlHolders = new ArrayList<>();
+        for (int i = 0; i < limit && rows.hasNext(); i++) {
+            JsonNode row = rows.next();
+            CompileUtils._assert(row.isObject(), "rows of a batch insert must be object type values.");
+            rowNode.set(Nodes.DATA.key(), row);
+            sqlHolders.addAll(compileSingle(rowNode, contextNode));
+        }
+        return sqlHolders;
+    }
+
+    private List<SQLHolder> compileSingle(JsonNode rootNode, ObjectNode contextNode) {
+        if (Objects.isNull(planCache)) {
+            return doCompile(rootNode, contextNode);
+        }
+        PlanShape shape = PlanShape.of(rootNode, contextNode);
+        if (Objects.isNull(shape)) {
+            return doCompile(rootNode, contextNode);
+        }
+        List<SQLHolder> sqlHolders = planCache.bind(shape);
+        RequestEvent.planCache(Objects.nonNull(sqlHolders));
+        if (Objects.isNull(sqlHolders)) {
+            sqlHolders = doCompile(rootNode, contextNode);
+            planCache.learn(shape, sqlHolders);
+        }
+        return sqlHolders;
+    }
+
+    private List<SQLHolder> doCompile(JsonNode rootNode, ObjectNode contextNode) {
         VisitContext ctx = new VisitContext(em, tableMetaCache, integrator);
 
         if (Objects.nonNull(contextNode)) {
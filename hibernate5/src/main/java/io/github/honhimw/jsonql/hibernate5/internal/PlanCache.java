@@ -0,0 +1,226 @@
+package io.github.honhimw.jsonql.hibernate5.internal;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.github.honhimw.jsonql.hibernate5.meta.SQLHolder;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Bounded LRU cache of compiled plans, keyed by the normalized request shape. A plan records the SQL and, for
+ * every JDBC parameter, which literal of the request it comes from. Requests of the same shape skip the visitor
+ * chain and the SQL translation, only their literals are re-bound.
+ * <p>
+ * A plan is only trusted after two compilations of the same shape derived the same recipe, parameters that can
+ * not be traced back to exactly one literal keep the shape on the full compile path. A literal no parameter was
+ * traced to may still be bound, converted beyond recognition(e.g. a date string bound as a timestamp), and would then
+ * be frozen into the plan as a constant. So while a plan has constants, it is only trusted once two compilations with
+ * different values of every untraced literal derived it. Parameters are traced by value, a constant equal to a literal
+ * (e.g. {@code status = 1} of a custom visitor and a page size of 1) is traced to it as well. So a literal traced by
+ * more than one parameter is only trusted once two compilations with different values of it derived the plan.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class PlanCache {
+
+    private final Cache<String, Plan> plans;
+
+    private final Cache<String, Candidate> candidates;
+
+    public PlanCache(long maximumSize) {
+        this.plans = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+        this.candidates = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    List<SQLHolder> bind(PlanShape shape) {
+        Plan plan = plans.getIfPresent(shape.key());
+        if (Objects.isNull(plan)) {
+            return null;
+        }
+        return plan.bind(shape.leaves());
+    }
+
+    void learn(PlanShape shape, List<SQLHolder> compiled) {
+        Plan plan = Plan.derive(compiled, shape.leaves(), shape.tables());
+        if (Objects.isNull(plan)) {
+            return;
+        }
+        String key = shape.key();
+        List<Object> leaves = Collections.unmodifiableList(new ArrayList<>(shape.leaves()));
+        Candidate candidate = candidates.getIfPresent(key);
+        if (Objects.nonNull(candidate) && plan.equals(candidate.plan()) && plan.isProvenBy(candidate.leaves(), leaves)) {
+            plans.put(key, plan);
+            candidates.invalidate(key);
+        } else {
+            candidates.put(key, new Candidate(plan, leaves));
+        }
+    }
+
+    /**
+     * Drop every plan touching the given table, e.g. after its metadata changed.
+     */
+    public void invalidate(String table) {
+        plans.asMap().values().removeIf(plan -> plan.tables().contains(table));
+        candidates.asMap().values().removeIf(candidate -> candidate.plan().tables().contains(table));
+    }
+
+    public void invalidateAll() {
+        plans.invalidateAll();
+        candidates.invalidateAll();
+    }
+
+    public long size() {
+        return plans.size();
+    }
+
+    public long hitCount() {
+        return plans.stats().hitCount();
+    }
+
+    public long missCount() {
+        return plans.stats().missCount();
+    }
+
+    public CacheStats stats() {
+        return plans.stats();
+    }
+
+    record Plan(List<Template> templates, Set<String> tables) {
+
+        private static final int AMBIGUOUS = -1;
+
+        static Plan derive(List<SQLHolder> compiled, List<Object> leaves, Set<String> tables) {
+            Map<Object, Integer> leafIndex = new HashMap<>(leaves.size() * 2);
+            for (int i = 0; i < leaves.size(); i++) {
+                Object leaf = leaves.get(i);
+                if (Objects.nonNull(leaf)) {
+                    leafIndex.merge(matchKey(leaf), i, (existing, current) -> AMBIGUOUS);
+                }
+            }
+            List<Template> templates = new ArrayList<>(compiled.size());
+            for (SQLHolder sqlHolder : compiled) {
+                List<Object> parameters = sqlHolder.parameters();
+                List<Slot> slots = new ArrayList<>(parameters.size());
+                for (Object parameter : parameters) {
+                    // null literals are part of the shape, so a null parameter is the same for every request
+                    Integer index = Objects.nonNull(parameter) ? leafIndex.get(matchKey(parameter)) : null;
+                    if (Objects.isNull(index)) {
+                        slots.add(new Slot(-1, parameter, null));
+                    } else if (index == AMBIGUOUS) {
+                        return null;
+                    } else {
+                        // e.g. an int literal bound to a bigint column as a long
+                        Object leaf = leaves.get(index);
+                        Class<?> type = leaf.getClass() == parameter.getClass() ? null : parameter.getClass();
+                        if (Objects.equals(convert(leaf, type), parameter)) {
+                            slots.add(new Slot(index, null, type));
+                        } else {
+                            slots.add(new Slot(-1, parameter, null));
+                        }
+                    }
+                }
+                templates.add(new Template(sqlHolder.sql(), List.copyOf(slots)));
+            }
+            return new Plan(List.copyOf(templates), Set.copyOf(tables));
+        }
+
+        List<SQLHolder> bind(List<Object> leaves) {
+            List<SQLHolder> sqlHolders = new ArrayList<>(templates.size());
+            for (Template template : templates) {
+                List<Object> parameters = new ArrayList<>(template.slots().size());
+                for (Slot slot : template.slots()) {
+                    parameters.add(slot.leaf() >= 0 ? convert(leaves.get(slot.leaf()), slot.type()) : slot.constant());
+                }
+                sqlHolders.add(new SQLHolder(template.sql(), parameters));
+            }
+            return sqlHolders;
+        }
+
+        /**
+         * @return true if every literal traced by more than one parameter differs between the two requests, and so
+         * does every literal not traced to a parameter if the plan has a constant it could hide in
+         */
+        boolean isProvenBy(List<Object> previous, List<Object> current) {
+            int[] traced = new int[current.size()];
+            boolean constants = false;
+            for (Template template : templates) {
+                for (Slot slot : template.slots()) {
+                    if (slot.leaf() >= 0) {
+                        traced[slot.leaf()]++;
+                    } else if (Objects.nonNull(slot.constant())) {
+                        constants = true;
+                    }
+                }
+            }
+            for (int i = 0; i < current.size(); i++) {
+                boolean unchanged = Objects.nonNull(current.get(i)) && Objects.equals(previous.get(i), current.get(i));
+                if (unchanged && (traced[i] > 1 || (constants && traced[i] == 0))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Integral and decimal numbers are matched by value, whatever their type.
+         */
+        private static Object matchKey(Object value) {
+            if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long) {
+                return BigDecimal.valueOf(((Number) value).longValue()).stripTrailingZeros();
+            }
+            if (value instanceof BigInteger integer) {
+                return new BigDecimal(integer).stripTrailingZeros();
+            }
+            if (value instanceof BigDecimal decimal) {
+                return decimal.stripTrailingZeros();
+            }
+            return value;
+        }
+
+        private static Object convert(Object value, Class<?> type) {
+            if (Objects.isNull(type) || !(value instanceof Number number)) {
+                return value;
+            }
+            if (type == Long.class) {
+                return number.longValue();
+            }
+            if (type == Integer.class) {
+                return number.intValue();
+            }
+            if (type == Short.class) {
+                return number.shortValue();
+            }
+            if (type == Byte.class) {
+                return number.byteValue();
+            }
+            if (type == BigInteger.class) {
+                return new BigDecimal(number.toString()).toBigInteger();
+            }
+            if (type == BigDecimal.class) {
+                return new BigDecimal(number.toString());
+            }
+            return value;
+        }
+
+    }
+
+    record Candidate(Plan plan, List<Object> leaves) {
+    }
+
+    record Template(String sql, List<Slot> slots) {
+    }
+
+    /**
+     * @param leaf     index of the literal bound, -1 for a constant
+     * @param constant value bound if not a literal
+     * @param type     type the literal is converted to, null to bind it as is
+     */
+    record Slot(int leaf, Object constant, Class<?> type) {
+    }
+
+}
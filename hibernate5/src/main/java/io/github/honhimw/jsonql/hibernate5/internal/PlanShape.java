@@ -0,0 +1,284 @@
+package io.github.honhimw.jsonql.hibernate5.internal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import io.github.honhimw.jsonql.common.FieldExpression;
+import io.github.honhimw.jsonql.common.JsonUtils;
+import io.github.honhimw.jsonql.common.KeysetCursor;
+import io.github.honhimw.jsonql.common.Nodes;
+import io.github.honhimw.jsonql.common.visitor.DeleteVisitor;
+import io.github.honhimw.jsonql.common.visitor.InsertVisitor;
+import io.github.honhimw.jsonql.common.visitor.SelectVisitor;
+import io.github.honhimw.jsonql.common.visitor.UpdateVisitor;
+import io.github.honhimw.jsonql.hibernate5.CompileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.*;
+
+/**
+ * Normalized shape of a request: everything that decides the rendered SQL goes into the {@link #key()},
+ * the literal values are stripped out into {@link #leaves()} in a stable order, already transformed the way
+ * {@link WhereVisitorImpl} binds them.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+final class PlanShape {
+
+    private static final Nodes[] STRUCTURAL_NODES = {
+        Nodes.TABLE, Nodes.ALIAS, Nodes.DISTINCT, Nodes.COUNT, Nodes.SELECTIONS,
+        Nodes.JOIN, Nodes.GROUP_BY, Nodes.ORDER_BY, Nodes.QUERY_DELETED,
+    };
+
+    private final StringBuilder keyBuilder = new StringBuilder();
+
+    private final List<Object> leaves = new ArrayList<>();
+
+    private final Set<String> tables = new HashSet<>();
+
+    private String key;
+
+    private PlanShape() {
+    }
+
+    String key() {
+        return key;
+    }
+
+    List<Object> leaves() {
+        return leaves;
+    }
+
+    Set<String> tables() {
+        return tables;
+    }
+
+    /**
+     * @return null if the request can not be cached, the compiler will then report it as usual
+     */
+    static PlanShape of(JsonNode rootNode, ObjectNode contextNode) {
+        if (!rootNode.isObject()) {
+            return null;
+        }
+        PlanShape shape = new PlanShape();
+        try {
+            if (!shape.visit(rootNode, contextNode)) {
+                return null;
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+        shape.key = shape.keyBuilder.toString();
+        return shape;
+    }
+
+    private boolean visit(JsonNode rootNode, ObjectNode contextNode) {
+        JsonNode operationNode = rootNode.at(Nodes.OPERATION.pointer());
+        if (!operationNode.isTextual()) {
+            return false;
+        }
+        // logic_delete binds the current time, never cache it
+        String operation = operationNode.asText().toLowerCase();
+        if (!StringUtils.equalsAny(operation, SelectVisitor.OPERATOR, InsertVisitor.OPERATOR, UpdateVisitor.OPERATOR, DeleteVisitor.OPERATOR)) {
+            return false;
+        }
+        keyBuilder.append(operation);
+        for (Nodes node : STRUCTURAL_NODES) {
+            JsonNode value = node.get(rootNode);
+            if (!value.isMissingNode()) {
+                keyBuilder.append('|').append(node.key()).append('=').append(value);
+            }
+        }
+        visitTables(rootNode);
+
+        if (SelectVisitor.OPERATOR.equals(operation)) {
+            JsonNode pageNode = rootNode.at(Nodes.PAGE.pointer());
+            JsonNode pageSizeNode = rootNode.at(Nodes.PAGE_SIZE.pointer());
+            ArrayNode afterNode = KeysetCursor.after(rootNode);
+            if (Objects.nonNull(afterNode)) {
+                int pageSize = pageSizeNode.asInt(20);
+                if (pageSize <= 0 || pageSize >= 5000) {
+                    return false;
+                }
+                // seek values are compared once per order column, each of them binds the same leaf
+                keyBuilder.append("|seek[");
+                for (JsonNode value : afterNode) {
+                    describe(value);
+                    keyBuilder.append(',');
+                    leaves.add(CompileUtils.unwrapNode(value));
+                }
+                keyBuilder.append(']');
+                leaves.add(pageSize);
+            } else if (!JsonUtils.isMissingOrNull(pageNode) && !JsonUtils.isMissingOrNull(pageSizeNode)) {
+                int page = pageNode.asInt(1);
+                int pageSize = pageSizeNode.asInt(20);
+                if (page <= 0 || pageSize <= 0 || pageSize >= 5000) {
+                    return false;
+                }
+                // the first page renders without offset
+                if (page == 1) {
+                    keyBuilder.append("|page=first");
+                    leaves.add(pageSize);
+                } else {
+                    int firstRow = (page - 1) * pageSize;
+                    keyBuilder.append("|page=next");
+                    leaves.add(firstRow);
+                    leaves.add(pageSize);
+                    leaves.add(firstRow + pageSize);
+                }
+            }
+        }
+
+        if (StringUtils.equalsAny(operation, InsertVisitor.OPERATOR, UpdateVisitor.OPERATOR)) {
+            JsonNode dataNode = rootNode.at(Nodes.DATA.pointer());
+            if (!dataNode.isObject()) {
+                return false;
+            }
+            keyBuilder.append("|data{");
+            Iterator<Map.Entry<String, JsonNode>> fields = dataNode.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> entry = fields.next();
+                keyBuilder.append(entry.getKey()).append(':');
+                if (!visitValue(entry.getValue(), true, null, contextNode)) {
+                    return false;
+                }
+                keyBuilder.append(',');
+            }
+            keyBuilder.append('}');
+        }
+
+        if (!InsertVisitor.OPERATOR.equals(operation)) {
+            JsonNode conditionNode = rootNode.at(Nodes.CONDITION.pointer());
+            keyBuilder.append("|condition");
+            if (conditionNode.isObject()) {
+                return visitWhere(conditionNode, contextNode);
+            } else {
+                return JsonUtils.isMissingOrNull(conditionNode);
+            }
+        }
+        return true;
+    }
+
+    private void visitTables(JsonNode rootNode) {
+        tables.add(rootNode.at(Nodes.TABLE.pointer()).asText());
+        JsonNode joinNode = rootNode.at(Nodes.JOIN.pointer());
+        if (joinNode.isArray()) {
+            for (JsonNode node : joinNode) {
+                JsonNode tableNode = node.at(Nodes.TABLE.pointer());
+                if (tableNode.isTextual()) {
+                    tables.add(tableNode.asText());
+                }
+            }
+        }
+    }
+
+    private boolean visitWhere(JsonNode conditionNode, ObjectNode contextNode) {
+        keyBuilder.append('{');
+        Iterator<Map.Entry<String, JsonNode>> fields = conditionNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            String name = entry.getKey();
+            JsonNode value = entry.getValue();
+            keyBuilder.append(name).append(':');
+            if (StringUtils.equalsAnyIgnoreCase(name, Nodes.AND.key(), Nodes.OR.key())) {
+                if (!value.isArray()) {
+                    return false;
+                }
+                keyBuilder.append('[');
+                for (JsonNode node : value) {
+                    if (!node.isObject() || !visitWhere(node, contextNode)) {
+                        return false;
+                    }
+                }
+                keyBuilder.append(']');
+            } else if (value.isObject()) {
+                keyBuilder.append('{');
+                Iterator<Map.Entry<String, JsonNode>> operations = value.fields();
+                while (operations.hasNext()) {
+                    Map.Entry<String, JsonNode> operation = operations.next();
+                    keyBuilder.append(operation.getKey()).append(':');
+                    if (!visitValue(operation.getValue(), true, operation.getKey(), contextNode)) {
+                        return false;
+                    }
+                    keyBuilder.append(',');
+                }
+                keyBuilder.append('}');
+            } else if (!visitValue(value, false, Nodes.EQUAL.key(), contextNode)) {
+                return false;
+            }
+            keyBuilder.append(',');
+        }
+        keyBuilder.append('}');
+        return true;
+    }
+
+    private boolean visitValue(JsonNode node, boolean render, String operation, ObjectNode contextNode) {
+        JsonNode valueNode = node;
+        if (render && node.isTextual()) {
+            String var = FieldExpression.placeholder(node.textValue());
+            if (Objects.nonNull(var)) {
+                keyBuilder.append("_{").append(var).append("}_=");
+                if (Objects.isNull(contextNode)) {
+                    keyBuilder.append("NONE");
+                    addLeaf(null, operation);
+                    return true;
+                }
+                valueNode = contextNode.path(var);
+                if (valueNode.isMissingNode()) {
+                    return false;
+                }
+            }
+        }
+        describe(valueNode);
+        addLeaf(CompileUtils.unwrapNode(valueNode), operation);
+        return true;
+    }
+
+    private void describe(JsonNode node) {
+        keyBuilder.append(node.getNodeType());
+        if (node.isNumber()) {
+            keyBuilder.append('.').append(node.numberType());
+        } else if (node.isPojo()) {
+            Object pojo = ((POJONode) node).getPojo();
+            keyBuilder.append('.').append(Objects.nonNull(pojo) ? pojo.getClass().getName() : null);
+        } else if (node.isArray()) {
+            keyBuilder.append('[');
+            for (JsonNode element : node) {
+                describe(element);
+                keyBuilder.append(',');
+            }
+            keyBuilder.append(']');
+        }
+    }
+
+    private void addLeaf(Object value, String operation) {
+        if (Objects.isNull(operation)) {
+            leaves.add(value);
+            return;
+        }
+        if (Objects.isNull(value)) {
+            // see WhereVisitorImpl#buildSinglePredicate, a null value is rendered as an always-true literal
+            if (!StringUtils.equalsAny(operation, Nodes.IS_NULL.key(), Nodes.IS_NULL.negKey())) {
+                leaves.add(Boolean.TRUE);
+            }
+            return;
+        }
+        String finalOperator = operation.startsWith("!") ? operation.substring(1).trim() : operation;
+        Nodes node = Nodes.of(finalOperator);
+        if (node == Nodes.IN && value instanceof Collection<?> values) {
+            leaves.addAll(values);
+        } else if (node == Nodes.CONTAINS) {
+            leaves.add("%" + value + "%");
+        } else if (node == Nodes.STARTS_WITH) {
+            leaves.add(value + "%");
+        } else if (node == Nodes.ENDS_WITH) {
+            leaves.add("%" + value);
+        } else {
+            leaves.add(value);
+        }
+    }
+
+}
@@ -1,9 +1,13 @@
 package io.github.honhimw.jsonql.hibernate5.internal;
 
+import com.fasterxml.jackson.core.JsonPointer;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
+import io.github.honhimw.jsonql.common.FieldExpression;
+import io.github.honhimw.jsonql.common.JsonUtils;
+import io.github.honhimw.jsonql.common.KeysetCursor;
 import io.github.honhimw.jsonql.common.Nodes;
 import io.github.honhimw.jsonql.common.visitor.JoinVisitor;
 import io.github.honhimw.jsonql.common.visitor.SelectVisitor;
@@ -21,7 +25,6 @@ import org.hibernate.query.criteria.internal.WildcardSelection;
 import javax.persistence.criteria.*;
 import java.util.*;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * @author hon_him
@@ -30,8 +33,7 @@ import java.util.regex.Pattern;
 
 class SelectVisitorImpl extends SelectVisitor {
 
-    private static final Pattern SIMPLE_FIELD = Pattern.compile("^[a-zA-Z_][a-zA-Z_0-9]*$");
-    private static final Pattern FIELD_WITH_REF = Pattern.compile("^(?<ref>[a-zA-Z_][a-zA-Z_0-9]*)\\.(?<field>[a-zA-Z_][a-zA-Z_0-9]*)$");
+    private static final JsonPointer LOGIC_DELETE = JsonPointer.compile("/" + CompileUtils.LOGIC_DELETE_FIELD);
 
     private final VisitContext ctx;
 
@@ -103,7 +105,7 @@ class SelectVisitorImpl extends SelectVisitor {
             Table rootTable = ctx.getRootTable();
             Column logicDelete = rootTable.getColumn(Identifier.toIdentifier(CompileUtils.LOGIC_DELETE_FIELD));
             if (Objects.nonNull(logicDelete)) {
-                ObjectNode deleteCondition = where.withObject("/" + CompileUtils.LOGIC_DELETE_FIELD);
+                ObjectNode deleteCondition = where.withObject(LOGIC_DELETE);
                 deleteCondition.putNull(Nodes.IS_NULL.key());
             }
         }
@@ -117,6 +119,51 @@ class SelectVisitorImpl extends SelectVisitor {
         ctx.configurerSelect(selectBuilder -> selectBuilder.applyPage(page, size));
     }
 
+    /**
+     * {@code (a, b) > (x, y)} is expanded to {@code a > x or (a = x and b > y)}, row-value comparison is neither
+     * portable nor able to mix directions, descending columns compare with {@code <}. Seek values are converted to
+     * the Java type of their columns, see {@link KeysetCursor#value}.
+     */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void visitSeek(ArrayNode orderBys, ArrayNode after, int size) {
+        CompileUtils._assert(0 < size && size < 5000, "pageSize must greater than 0 and less than 5000.");
+        ctx.configurerSelect(selectBuilder -> selectBuilder.applyPage(1, size));
+        if (after.isEmpty()) {
+            return;
+        }
+        CompileUtils._assert(after.size() == orderBys.size(), "`after` must have a value for every `orderBy` column.");
+        List<String> fields = new ArrayList<>(orderBys.size());
+        List<Boolean> descs = new ArrayList<>(orderBys.size());
+        List<JsonNode> values = new ArrayList<>(orderBys.size());
+        for (int i = 0; i < orderBys.size(); i++) {
+            String text = orderBys.get(i).asText();
+            descs.add(StringUtils.startsWith(text, "-"));
+            fields.add(StringUtils.removeStart(StringUtils.removeStart(text, "+"), "-"));
+            JsonNode value = after.get(i);
+            CompileUtils._assert(!JsonUtils.isMissingOrNull(value), "keyset values must not be null.");
+            values.add(value);
+        }
+        ctx.getWhereStack().addPredicate((root, cb) -> {
+            Path[] paths = new Path[fields.size()];
+            Comparable[] keys = new Comparable[fields.size()];
+            for (int i = 0; i < fields.size(); i++) {
+                paths[i] = ctx.getPath(root, fields.get(i));
+                keys[i] = (Comparable) KeysetCursor.value(values.get(i), paths[i].getJavaType());
+            }
+            Predicate[] ors = new Predicate[fields.size()];
+            for (int i = 0; i < fields.size(); i++) {
+                Predicate[] ands = new Predicate[i + 1];
+                for (int j = 0; j < i; j++) {
+                    ands[j] = cb.equal(paths[j], keys[j]);
+                }
+                ands[i] = descs.get(i) ? cb.lessThan(paths[i], keys[i]) : cb.greaterThan(paths[i], keys[i]);
+                ors[i] = cb.and(ands);
+            }
+            return cb.or(ors);
+        });
+    }
+
     @Override
     public void visitGroupBy(ArrayNode groupBys) {
         List<String> groupByColumns = new ArrayList<>();
@@ -180,9 +227,14 @@ class SelectVisitorImpl extends SelectVisitor {
     }
 
     private Expression<?> getExpression(Root<?> root, CriteriaBuilder cb, String plain) {
-        Matcher simpleMatcher = SIMPLE_FIELD.matcher(plain);
-        if (simpleMatcher.find()) {
+        FieldExpression expression = FieldExpression.of(plain);
+        if (expression.isField()) {
             return root.get(plain);
+        } else if (expression.isRefField()) {
+            String ref = expression.ref();
+            From<?, ?> from = ctx.forRootAlias(root).get(ref);
+            Objects.requireNonNull(from, "ref: [%s] does not exists.".formatted(ref));
+            return from.get(CompileUtils.getFinalFieldName(expression.name()));
         } else {
             Matcher aliasMatcher = PlainExpression.ALIAS.matcher(plain);
             if (aliasMatcher.find()) {
@@ -190,16 +242,7 @@ class SelectVisitorImpl extends SelectVisitor {
                 plainExpression.alias(aliasMatcher.group(PlainExpression.ARG));
                 return plainExpression;
             } else {
-                Matcher refMatcher = FIELD_WITH_REF.matcher(plain);
-                if (refMatcher.find()) {
-                    String ref = refMatcher.group("ref");
-                    String field = refMatcher.group("field");
-                    From<?, ?> from = ctx.forRootAlias(root).get(ref);
-                    Objects.requireNonNull(from, "ref: [%s] does not exists.".formatted(ref));
-                    return from.get(CompileUtils.getFinalFieldName(field));
-                } else {
-                    return new PlainExpression(cb, plain);
-                }
+                return new PlainExpression(cb, plain);
             }
         }
     }
@@ -38,9 +38,9 @@ class UpdateVisitorImpl extends UpdateVisitor {
 
     @Override
     public void visitSyntax(JsonNode rootNode) {
-        CompileUtils._assert(JsonUtils.isMissingOrNull(rootNode.at(Nodes.JOIN.path())), "[join] argument is not allowed in update statement, please use a simple where clause for update such as `id`.");
-        CompileUtils._assert(JsonUtils.isMissingOrNull(rootNode.at(Nodes.ORDER_BY.path())), "[orderBy] argument is not allowed in update statement.");
-        CompileUtils._assert(JsonUtils.isMissingOrNull(rootNode.at(Nodes.GROUP_BY.path())), "[groupBy] argument is not allowed in update statement.");
+        CompileUtils._assert(JsonUtils.isMissingOrNull(rootNode.at(Nodes.JOIN.pointer())), "[join] argument is not allowed in update statement, please use a simple where clause for update such as `id`.");
+        CompileUtils._assert(JsonUtils.isMissingOrNull(rootNode.at(Nodes.ORDER_BY.pointer())), "[orderBy] argument is not allowed in update statement.");
+        CompileUtils._assert(JsonUtils.isMissingOrNull(rootNode.at(Nodes.GROUP_BY.pointer())), "[groupBy] argument is not allowed in update statement.");
     }
 
     @Override
@@ -2,6 +2,7 @@ package io.github.honhimw.jsonql.hibernate5.internal;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.honhimw.jsonql.common.FieldExpression;
 import io.github.honhimw.jsonql.hibernate5.CompileUtils;
 import io.github.honhimw.jsonql.hibernate5.DMLUtils;
 import io.github.honhimw.jsonql.hibernate5.MetadataExtractorIntegrator;
@@ -22,8 +23,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * @author hon_him
@@ -34,8 +33,6 @@ import java.util.regex.Pattern;
 @Getter
 class VisitContext {
 
-    private static final Pattern SIMPLE_FIELD = Pattern.compile("^[a-zA-Z_][a-zA-Z_0-9]*$");
-    private static final Pattern FIELD_WITH_REF = Pattern.compile("^(?<ref>[a-zA-Z_][a-zA-Z_0-9]*)\\.(?<field>[a-zA-Z_][a-zA-Z_0-9]*)$");
 
     private final EntityManager em;
     private final TableMetaCache tableMetaCache;
@@ -150,20 +147,16 @@ class VisitContext {
     }
 
     public <T> Path<T> getPath(Root<?> root, String plain) {
-        Matcher simpleMatcher = SIMPLE_FIELD.matcher(plain);
-        if (simpleMatcher.find()) {
+        FieldExpression expression = FieldExpression.of(plain);
+        if (expression.isField()) {
             return root.get(CompileUtils.getFinalFieldName(plain));
+        } else if (expression.isRefField()) {
+            String ref = expression.ref();
+            From<?, ?> from = forRootAlias(root).get(ref);
+            Objects.requireNonNull(from, "ref: [%s] does not exists.".formatted(ref));
+            return from.get(CompileUtils.getFinalFieldName(expression.name()));
         } else {
-            Matcher refMatcher = FIELD_WITH_REF.matcher(plain);
-            if (refMatcher.find()) {
-                String ref = refMatcher.group("ref");
-                String field = refMatcher.group("field");
-                From<?, ?> from = forRootAlias(root).get(ref);
-                Objects.requireNonNull(from, "ref: [%s] does not exists.".formatted(ref));
-                return from.get(CompileUtils.getFinalFieldName(field));
-            } else {
-                throw new IllegalArgumentException("Unknown field expression[%s].".formatted(plain));
-            }
+            throw new IllegalArgumentException("Unknown field expression[%s].".formatted(plain));
         }
     }
 
@@ -182,20 +175,17 @@ class VisitContext {
 
     private ObjectNode contextNode;
 
-    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("^_\\{(?<var>[a-zA-Z0-9_]+)}_$");
-
     public boolean isPlaceholder(String pattern) {
-        return PLACEHOLDER_PATTERN.matcher(pattern).find();
+        return Objects.nonNull(FieldExpression.placeholder(pattern));
     }
 
     public Object renderContext(String placeholder) {
-        Matcher matcher = PLACEHOLDER_PATTERN.matcher(placeholder);
-        if (!matcher.find()) {
+        String var = FieldExpression.placeholder(placeholder);
+        if (Objects.isNull(var)) {
             return placeholder;
         }
         if (Objects.nonNull(contextNode)) {
-            String var = matcher.group("var");
-            JsonNode at = contextNode.at("/" + var);
+            JsonNode at = contextNode.path(var);
             if (at.isMissingNode()) {
                 throw new IllegalArgumentException("argument with name[%s] dose not exists.".formatted(var));
             }
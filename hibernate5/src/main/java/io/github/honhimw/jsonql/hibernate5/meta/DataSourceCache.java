@@ -1,28 +1,48 @@
 package io.github.honhimw.jsonql.hibernate5.meta;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import io.github.honhimw.jsonql.common.DataSourceInfo;
 import io.github.honhimw.jsonql.hibernate5.DataSourceHolder;
 import io.github.honhimw.jsonql.hibernate5.MetadataExtractorIntegrator;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.persistence.EntityManager;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
+ * Registry of data sources, a registered data source is only opened on first use.
+ * <p>
+ * Eviction is opt-in: with an idle timeout, open data sources idle for longer are closed by a background sweeper, and
+ * with a maximum, opening one beyond it closes the least recently used one, they open again on next use. Only data
+ * sources without a {@link Lease} are evicted, so hold one around every use of a holder, a holder from
+ * {@link #getDataSourceHolder(Long)} kept beyond that may be closed under its users.
+ *
  * @author hon_him
  * @since 2024-06-28
  */
 
 @Slf4j
-public class DataSourceCache {
+public class DataSourceCache implements AutoCloseable {
 
     private Map<Long, DataSourceHolderSupplier> dataSourceCacheMap = new ConcurrentHashMap<>();
 
@@ -30,61 +50,378 @@ public class DataSourceCache {
 
     private final DataSourceHolder embedded;
 
+    private final Duration idleTimeout;
+
+    private final int maximumOpen;
+
+    private final boolean sharedBootstrap;
+
+    private final ScheduledExecutorService sweeper;
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Data sources stay open until unregistered or closed.
+     */
     public DataSourceCache(EntityManager em) {
+        this(em, null, Integer.MAX_VALUE);
+    }
+
+    public DataSourceCache(EntityManager em, Duration idleTimeout, int maximumOpen) {
+        this(em, idleTimeout, maximumOpen, false);
+    }
+
+    /**
+     * @param idleTimeout     open data sources not used for this long are closed, never if null
+     * @param maximumOpen     maximum data sources open at the same time, beyond it unleased ones are closed
+     * @param sharedBootstrap open data sources with {@link DataSourceHolder#getSharedInstance}, so data sources of the
+     *                        same database share one Hibernate bootstrap
+     */
+    public DataSourceCache(EntityManager em, Duration idleTimeout, int maximumOpen, boolean sharedBootstrap) {
+        if (maximumOpen <= 0) {
+            throw new IllegalArgumentException("maximumOpen must be positive: %d".formatted(maximumOpen));
+        }
+        if (Objects.nonNull(idleTimeout) && (idleTimeout.isNegative() || idleTimeout.isZero())) {
+            throw new IllegalArgumentException("idleTimeout must be positive: %s".formatted(idleTimeout));
+        }
         this.em = em;
+        this.idleTimeout = idleTimeout;
+        this.maximumOpen = maximumOpen;
+        this.sharedBootstrap = sharedBootstrap;
         embedded = new DataSourceHolder(null, em, null, MetadataExtractorIntegrator.INSTANCE) {
             @Override
             public void close() throws Exception {
                 throw new UnsupportedOperationException("current data source can't be close.");
             }
         };
+        if (Objects.nonNull(idleTimeout)) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "jsonql-data-source-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = Math.max(1_000, Math.min(idleTimeout.toMillis() / 2, Duration.ofMinutes(1).toMillis()));
+            sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            sweeper = null;
+        }
     }
 
-    public DataSourceInfo get(Long id) {
-        DataSourceHolderSupplier dataSourceHolderSupplier = dataSourceCacheMap.get(id);
-        if (Objects.isNull(dataSourceHolderSupplier)) {
-            throw new NoSuchElementException("data-source not exists: %s".formatted(id));
+    /**
+     * Register a data source without opening it, a data source registered under the same id before is closed.
+     */
+    public void register(Long id, DataSourceInfo info) {
+        DataSourceHolderSupplier previous = dataSourceCacheMap.put(Objects.requireNonNull(id), new DataSourceHolderSupplier(Objects.requireNonNull(info), this::open));
+        if (Objects.nonNull(previous)) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Remove the data source and close it if open.
+     *
+     * @return false if not registered
+     */
+    public boolean unregister(Long id) {
+        DataSourceHolderSupplier removed = dataSourceCacheMap.remove(id);
+        if (Objects.isNull(removed)) {
+            return false;
         }
-        return dataSourceHolderSupplier.getInfo();
+        removed.close();
+        return true;
+    }
+
+    public DataSourceInfo get(Long id) {
+        return supplier(id).getInfo();
     }
 
+    /**
+     * The holder is not protected from eviction, see {@link #lease(Long)}.
+     */
     public DataSourceHolder getDataSourceHolder(Long id) {
+        DataSourceHolderSupplier dataSourceHolderSupplier = supplier(id);
+        boolean opening = !dataSourceHolderSupplier.initialized();
+        DataSourceHolder dataSourceHolder = dataSourceHolderSupplier.get();
+        if (opening) {
+            evictOverflow(dataSourceHolderSupplier);
+        }
+        return dataSourceHolder;
+    }
+
+    /**
+     * Open the data source if not yet, it is not evicted until the lease is closed.
+     */
+    public Lease lease(Long id) {
+        DataSourceHolderSupplier dataSourceHolderSupplier = supplier(id);
+        boolean opening = !dataSourceHolderSupplier.initialized();
+        Lease lease = new Lease(dataSourceHolderSupplier, dataSourceHolderSupplier.lease());
+        if (opening) {
+            evictOverflow(dataSourceHolderSupplier);
+        }
+        return lease;
+    }
+
+    public DataSourceHolder getEmbedded() {
+        return embedded;
+    }
+
+    public Stats stats() {
+        int registered = 0;
+        int open = 0;
+        int activeConnections = 0;
+        int idleConnections = 0;
+        for (DataSourceHolderSupplier supplier : dataSourceCacheMap.values()) {
+            registered++;
+            DataSourceHolder dataSourceHolder = supplier.current();
+            if (Objects.isNull(dataSourceHolder)) {
+                continue;
+            }
+            open++;
+            HikariDataSource dataSource = dataSourceHolder.getDataSource();
+            HikariPoolMXBean pool = Objects.nonNull(dataSource) ? dataSource.getHikariPoolMXBean() : null;
+            if (Objects.nonNull(pool)) {
+                activeConnections += pool.getActiveConnections();
+                idleConnections += pool.getIdleConnections();
+            }
+        }
+        return new Stats(registered, open, activeConnections, idleConnections, evictionCount.get());
+    }
+
+    /**
+     * Stop the sweeper and close every open data source.
+     */
+    @Override
+    public void close() {
+        if (Objects.nonNull(sweeper)) {
+            sweeper.shutdownNow();
+        }
+        dataSourceCacheMap.values().forEach(DataSourceHolderSupplier::close);
+    }
+
+    /**
+     * Open the holder of a data source, override e.g. to decorate it.
+     */
+    protected DataSourceHolder open(DataSourceInfo info) {
+        return sharedBootstrap ? DataSourceHolder.getSharedInstance(info) : DataSourceHolder.getInstance(info);
+    }
+
+    private void sweep() {
+        try {
+            long deadline = System.currentTimeMillis() - idleTimeout.toMillis();
+            dataSourceCacheMap.forEach((id, supplier) -> {
+                if (supplier.closeIfUnused(deadline)) {
+                    log.info("close idle data-source: {}", id);
+                    evictionCount.incrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("sweep idle data-sources failed.", e);
+        }
+    }
+
+    private DataSourceHolderSupplier supplier(Long id) {
         DataSourceHolderSupplier dataSourceHolderSupplier = dataSourceCacheMap.get(id);
         if (Objects.isNull(dataSourceHolderSupplier)) {
             throw new NoSuchElementException("data-source not exists: %s".formatted(id));
         }
-        return dataSourceHolderSupplier.get();
+        return dataSourceHolderSupplier;
     }
 
-    public DataSourceHolder getEmbedded() {
-        return embedded;
+    /**
+     * Victims are picked under the monitor of the cache without waiting for the lock of any supplier, one opening or
+     * busy is skipped, and are closed after leaving it.
+     */
+    private void evictOverflow(DataSourceHolderSupplier opened) {
+        List<Map.Entry<DataSourceHolderSupplier, DataSourceHolder>> evicted = new ArrayList<>();
+        synchronized (this) {
+            Set<DataSourceHolderSupplier> skipped = new HashSet<>();
+            // every round either takes one out or gives up, a candidate found busy is skipped in the next rounds
+            for (int round = 0; round < dataSourceCacheMap.size(); round++) {
+                int open = 0;
+                Map.Entry<Long, DataSourceHolderSupplier> eldest = null;
+                long eldestInvoked = Long.MAX_VALUE;
+                for (Map.Entry<Long, DataSourceHolderSupplier> entry : dataSourceCacheMap.entrySet()) {
+                    DataSourceHolderSupplier supplier = entry.getValue();
+                    if (!supplier.initialized()) {
+                        continue;
+                    }
+                    open++;
+                    long latestInvoked = supplier.getLatestInvoked();
+                    if (supplier != opened && !supplier.isOpening() && !supplier.isLeased() && !skipped.contains(supplier)
+                        && latestInvoked < eldestInvoked) {
+                        eldest = entry;
+                        eldestInvoked = latestInvoked;
+                    }
+                }
+                if (open <= maximumOpen || Objects.isNull(eldest)) {
+                    break;
+                }
+                DataSourceHolder dataSourceHolder = eldest.getValue().detachIfUnused(eldestInvoked + 1);
+                if (Objects.isNull(dataSourceHolder)) {
+                    skipped.add(eldest.getValue());
+                    continue;
+                }
+                log.info("close least recently used data-source: {}", eldest.getKey());
+                evictionCount.incrementAndGet();
+                evicted.add(Map.entry(eldest.getValue(), dataSourceHolder));
+            }
+        }
+        for (Map.Entry<DataSourceHolderSupplier, DataSourceHolder> entry : evicted) {
+            entry.getKey().close(entry.getValue());
+        }
     }
 
     private Map<Long, DataSourceHolderSupplier> getDataSourceCacheMap() {
         return dataSourceCacheMap;
     }
 
+    /**
+     * @param registered        registered data sources
+     * @param open              data sources with an open pool
+     * @param activeConnections connections in use over all open pools
+     * @param idleConnections   idle connections over all open pools
+     * @param evictions         data sources closed for being idle or least recently used
+     */
+    public record Stats(int registered, int open, int activeConnections, int idleConnections, long evictions) {
+    }
+
+    /**
+     * Use of an open data source, it is not evicted until every lease of it is closed.
+     */
+    public static final class Lease implements AutoCloseable {
+
+        private final DataSourceHolderSupplier supplier;
+
+        private final DataSourceHolder holder;
+
+        private boolean closed;
+
+        private Lease(DataSourceHolderSupplier supplier, DataSourceHolder holder) {
+            this.supplier = supplier;
+            this.holder = holder;
+        }
+
+        public DataSourceHolder holder() {
+            return holder;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            supplier.release();
+        }
+
+    }
+
+    /**
+     * Opens its holder single-flight: concurrent callers wait for the one opening it. After a failed open, callers
+     * fail fast until an exponentially growing backoff has passed, instead of each opening a new pool.
+     * <p>
+     * The holder is handed out, leased and taken out for closing under the same lock, so it is never closed between a
+     * caller seeing it idle and another one taking it. Eviction reads the lease count and the opening flag without the
+     * lock and never waits for it, the lock is held through an open and its backoff.
+     */
     private static class DataSourceHolderSupplier implements Supplier<DataSourceHolder> {
 
+        private static final long INITIAL_BACKOFF_MILLIS = 500;
+
+        private static final long MAXIMUM_BACKOFF_MILLIS = Duration.ofMinutes(1).toMillis();
+
         private final DataSourceInfo dto;
 
-        private final AtomicReference<DataSourceHolder> holder = new AtomicReference<>(null);
+        private final Function<DataSourceInfo, DataSourceHolder> opener;
 
-        private final AtomicLong latestInvoked = new AtomicLong(System.currentTimeMillis());
+        private final ReentrantLock lock = new ReentrantLock();
 
-        public DataSourceHolderSupplier(DataSourceInfo dto) {
+        private volatile DataSourceHolder holder;
+
+        private volatile long latestInvoked = System.currentTimeMillis();
+
+        /**
+         * Written under the lock.
+         */
+        private volatile int leases;
+
+        private volatile boolean opening;
+
+        private int failures;
+
+        private long retryAt;
+
+        private RuntimeException lastFailure;
+
+        public DataSourceHolderSupplier(DataSourceInfo dto, Function<DataSourceInfo, DataSourceHolder> opener) {
             this.dto = dto;
+            this.opener = opener;
         }
 
         @Override
         public DataSourceHolder get() {
-            this.latestInvoked.updateAndGet(operand -> System.currentTimeMillis());
-            return holder.updateAndGet(dataSourceHolder -> {
-                if (Objects.isNull(dataSourceHolder)) {
-                    dataSourceHolder = DataSourceHolder.getInstance(dto);
+            lock.lock();
+            try {
+                latestInvoked = System.currentTimeMillis();
+                if (Objects.nonNull(holder)) {
+                    return holder;
                 }
+                long now = System.currentTimeMillis();
+                if (now < retryAt) {
+                    throw new IllegalStateException("data-source unavailable: %s, retry in %dms.".formatted(dto.getId(), retryAt - now), lastFailure);
+                }
+                DataSourceHolder dataSourceHolder;
+                opening = true;
+                try {
+                    dataSourceHolder = opener.apply(dto);
+                } catch (RuntimeException e) {
+                    failures++;
+                    long backoff = Math.min(MAXIMUM_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(failures - 1, 16));
+                    // jitter, so nodes sharing the database do not retry in lockstep
+                    retryAt = now + backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+                    lastFailure = e;
+                    log.warn("open data-source failed: {}, {} time(s) in a row.", dto.getId(), failures, e);
+                    throw e;
+                } finally {
+                    opening = false;
+                }
+                failures = 0;
+                retryAt = 0;
+                lastFailure = null;
+                holder = dataSourceHolder;
                 return dataSourceHolder;
-            });
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public DataSourceHolder lease() {
+            lock.lock();
+            try {
+                DataSourceHolder dataSourceHolder = get();
+                leases++;
+                return dataSourceHolder;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void release() {
+            lock.lock();
+            try {
+                leases--;
+                latestInvoked = System.currentTimeMillis();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean isLeased() {
+            return leases > 0;
+        }
+
+        public boolean isOpening() {
+            return opening;
         }
 
         public DataSourceInfo getInfo() {
@@ -92,15 +429,83 @@ public class DataSourceCache {
         }
 
         public boolean initialized() {
-            return Objects.nonNull(holder.get());
+            return Objects.nonNull(holder);
+        }
+
+        public DataSourceHolder current() {
+            return holder;
+        }
+
+        public long getLatestInvoked() {
+            return latestInvoked;
         }
 
         public LocalDateTime getLatest() {
-            long l = latestInvoked.get();
-            return LocalDateTime.from(Instant.ofEpochMilli(l));
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(latestInvoked), ZoneId.systemDefault());
         }
 
-    }
+        /**
+         * Close the holder if open, unleased and not used since the deadline, see {@link #detachIfUnused(long)}.
+         *
+         * @return true if closed
+         */
+        public boolean closeIfUnused(long deadline) {
+            DataSourceHolder dataSourceHolder = detachIfUnused(deadline);
+            if (Objects.isNull(dataSourceHolder)) {
+                return false;
+            }
+            close(dataSourceHolder);
+            return true;
+        }
 
+        /**
+         * Take the holder out if open, unleased and not used since the deadline, checked under the lock. Gives up
+         * instead of waiting for the lock, its owner is using the supplier.
+         *
+         * @return the holder to close, null if kept
+         */
+        public DataSourceHolder detachIfUnused(long deadline) {
+            if (!lock.tryLock()) {
+                return null;
+            }
+            try {
+                if (Objects.isNull(holder) || leases > 0 || latestInvoked >= deadline) {
+                    return null;
+                }
+                DataSourceHolder dataSourceHolder = holder;
+                holder = null;
+                return dataSourceHolder;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Close the holder if open, the next {@link #get()} opens a new one.
+         */
+        public void close() {
+            DataSourceHolder dataSourceHolder;
+            // not while it is being opened, the new holder would be left open
+            lock.lock();
+            try {
+                dataSourceHolder = holder;
+                holder = null;
+            } finally {
+                lock.unlock();
+            }
+            if (Objects.nonNull(dataSourceHolder)) {
+                close(dataSourceHolder);
+            }
+        }
+
+        private void close(DataSourceHolder dataSourceHolder) {
+            try {
+                dataSourceHolder.close();
+            } catch (Exception e) {
+                log.warn("close data-source failed: {}", dto.getId(), e);
+            }
+        }
+
+    }
 
 }
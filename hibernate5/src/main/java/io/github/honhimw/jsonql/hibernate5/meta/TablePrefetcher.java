@@ -0,0 +1,55 @@
+package io.github.honhimw.jsonql.hibernate5.meta;
+
+import io.github.honhimw.jsonql.common.AsyncLimiter;
+import io.github.honhimw.jsonql.hibernate5.DMLUtils;
+import io.github.honhimw.jsonql.hibernate5.ddl.MetadataExtractor;
+import io.github.honhimw.jsonql.hibernate5.ddl.MetadataExtractor.ColumnMetaData;
+import org.hibernate.mapping.Table;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Startup warm-up of many tables: their metadata is read in bulk, then the {@link Table}s and their
+ * {@link DMLUtils} metamodels are built in parallel, so the first request of a table does not pay for them.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public final class TablePrefetcher {
+
+    private TablePrefetcher() {
+    }
+
+    /**
+     * @param parallelism maximum tables built at the same time
+     * @return tables by the given names, tables not found are absent
+     */
+    public static Map<String, Table> prefetch(MetadataExtractor extractor, EntityManager em, Collection<String> tableNames, int parallelism) {
+        Map<String, List<ColumnMetaData>> tableMetas = extractor.getTableMetas(tableNames);
+        AsyncLimiter limiter = new AsyncLimiter(parallelism);
+        Map<String, CompletableFuture<Table>> futures = new LinkedHashMap<>();
+        tableMetas.forEach((tableName, tableMeta) -> futures.put(tableName, limiter.submit(() -> {
+            Table table = extractor.getTable(tableName, tableMeta);
+            DMLUtils.getInstance(em, table, extractor.getIntegrator());
+            return table;
+        })));
+        Map<String, Table> tables = new LinkedHashMap<>();
+        try {
+            futures.forEach((tableName, future) -> tables.put(tableName, future.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+        return tables;
+    }
+
+}
@@ -4,11 +4,14 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.honhimw.jsonql.common.JsonUtils;
+import io.github.honhimw.jsonql.common.StreamingRequest;
 import io.github.honhimw.jsonql.hibernate5.JsonQLExecutor;
 import io.github.honhimw.jsonql.hibernate5.internal.JsonQLCompiler;
+import io.github.honhimw.jsonql.hibernate5.internal.PlanCache;
 import io.github.honhimw.jsonql.hibernate5.meta.MockTableMetaCache;
 import io.github.honhimw.jsonql.hibernate5.meta.SQLHolder;
 import io.github.honhimw.jsonql.hibernate5.meta.TableMetaCache;
+import io.github.honhimw.jsonql.hibernate5.meta.TablePrefetcher;
 import lombok.Getter;
 import org.hibernate.mapping.Table;
 
@@ -53,23 +56,23 @@ public class JsonQL implements AutoCloseable {
         if (builder.tableMetaCache != null) {
             tableMetaCache = builder.tableMetaCache;
         } else if (builder.tables != null) {
-            Map<String, Table> tableMap = new HashMap<>();
-            for (String tableName : builder.tables) {
-                Table table = jsonQLContext.getMetadataExtractor().getTable(tableName);
-                tableMap.put(tableName, table);
-            }
-            tableMetaCache = new MockTableMetaCache(tableMap);
+            Map<String, Table> tableMap = TablePrefetcher.prefetch(
+                jsonQLContext.getMetadataExtractor(), jsonQLContext.getEm(), builder.tables, builder.prefetchParallelism);
+            tableMetaCache = new MockTableMetaCache(new HashMap<>(tableMap));
         } else {
             tableMetaCache = new MockTableMetaCache(new HashMap<>());
         }
 
         compiler = new JsonQLCompiler(jsonQLContext.getEm(), tableMetaCache);
+        if (builder.planCacheSize > 0) {
+            compiler.acceptPlanCache(new PlanCache(builder.planCacheSize));
+        }
         executor = new JsonQLExecutor(compiler);
         mapper = JsonUtils.getObjectMapper();
     }
 
     public List<SQLHolder> compile(String jsonData) throws JsonProcessingException {
-        return compiler.compile(mapper.readTree(jsonData));
+        return compiler.compile(StreamingRequest.read(jsonData));
     }
 
     public List<SQLHolder> compile(JsonNode rootNode) {
@@ -99,6 +102,8 @@ public class JsonQL implements AutoCloseable {
         private String password;
         private TableMetaCache tableMetaCache;
         private List<String> tables;
+        private long planCacheSize;
+        private int prefetchParallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
         private final Map<String, Object> driverProperties = new HashMap<>();
 
         private Builder() {
@@ -158,6 +163,28 @@ public class JsonQL implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Sets the {@code prefetchParallelism} and returns a reference to this Builder enabling method chaining.
+         *
+         * @param val maximum {@code tables} built at the same time during construction, available processors by default
+         * @return a reference to this Builder
+         */
+        public Builder prefetchParallelism(int val) {
+            prefetchParallelism = val;
+            return this;
+        }
+
+        /**
+         * Sets the {@code planCacheSize} and returns a reference to this Builder enabling method chaining.
+         *
+         * @param val maximum compiled plans to keep, plan cache is disabled if not positive
+         * @return a reference to this Builder
+         */
+        public Builder planCacheSize(long val) {
+            planCacheSize = val;
+            return this;
+        }
+
         /**
          * Sets the {@code driverProperties} and returns a reference to this Builder enabling method chaining.
          *
@@ -0,0 +1,133 @@
+package io.github.honhimw.jsonql.hibernate5.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.honhimw.jsonql.common.AdaptivePoolSizer;
+import io.github.honhimw.jsonql.common.AsyncLimiter;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Pools of an in-memory H2 database, resized every 50ms.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class AdaptivePoolSizerTests extends TestsBase {
+
+    @Test
+    void configureWithinBounds() {
+        HikariConfig config = config(10);
+        new AdaptivePoolSizer(1, 4).configure(config);
+        assert config.getMaximumPoolSize() == 4;
+        config = config(2);
+        new AdaptivePoolSizer(6, 8).configure(config);
+        assert config.getMaximumPoolSize() == 6;
+    }
+
+    /**
+     * A thread waiting for a connection grows the pool, and the limiter sized to it follows.
+     */
+    @Test
+    @SneakyThrows
+    void growWhileWaiting() {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(1, 4, 50, 10_000);
+        HikariConfig config = config(1);
+        config.setConnectionTimeout(5_000);
+        sizer.configure(config);
+        AtomicInteger resized = new AtomicInteger();
+        AsyncLimiter limiter = new AsyncLimiter(1);
+        sizer.onResize(resized::set);
+        sizer.onResize(limiter::setLimit);
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            sizer.start(dataSource);
+            CompletableFuture<Void> waiter;
+            try (Connection ignored = dataSource.getConnection()) {
+                waiter = CompletableFuture.runAsync(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        assert connection.isValid(1);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                await(() -> resized.get() > 1);
+            }
+            waiter.get(10, TimeUnit.SECONDS);
+            sizer.stop();
+            Thread.sleep(100);
+            assert dataSource.getMaximumPoolSize() <= 4;
+            assert limiter.getLimit() == dataSource.getMaximumPoolSize();
+        } finally {
+            sizer.stop();
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void shrinkWhileIdle() {
+        AdaptivePoolSizer sizer = new AdaptivePoolSizer(1, 4, 50, 10_000);
+        HikariConfig config = config(4);
+        config.setMinimumIdle(4);
+        sizer.configure(config);
+        AtomicInteger resized = new AtomicInteger();
+        sizer.onResize(resized::set);
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            sizer.start(dataSource);
+            await(() -> dataSource.getMaximumPoolSize() == 1);
+            assert resized.get() == 1;
+            assert dataSource.getMinimumIdle() <= 1;
+        } finally {
+            sizer.stop();
+        }
+    }
+
+    /**
+     * Raising the limit starts queued tasks right away, lowering it lets tasks in flight finish.
+     */
+    @Test
+    @SneakyThrows
+    void resizeLimiter() {
+        AsyncLimiter limiter = new AsyncLimiter(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> first = limiter.submit(() -> release.await(10, TimeUnit.SECONDS));
+        CompletableFuture<Integer> second = limiter.submit(() -> 2);
+        Thread.sleep(100);
+        assert !second.isDone() && limiter.getPending() == 1;
+        limiter.setLimit(2);
+        assert second.get(5, TimeUnit.SECONDS) == 2;
+
+        limiter.setLimit(1);
+        // the second one leaves its slot right after completing
+        Thread.sleep(100);
+        assert limiter.getRunning() == 1 && Objects.isNull(limiter.trySubmit(() -> 3));
+        release.countDown();
+        assert first.get(5, TimeUnit.SECONDS);
+    }
+
+    private static HikariConfig config(int maximumPoolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName("org.h2.Driver");
+        config.setJdbcUrl("jdbc:h2:mem:pool_sizer;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(maximumPoolSize);
+        return config;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assert condition.getAsBoolean();
+    }
+
+}
@@ -0,0 +1,106 @@
+package io.github.honhimw.jsonql.hibernate5.datasource;
+
+import io.github.honhimw.jsonql.common.AsyncLimiter;
+import io.github.honhimw.jsonql.hibernate5.AsyncJsonQLExecutor;
+import io.github.honhimw.jsonql.hibernate5.internal.JsonQLCompiler;
+import lombok.SneakyThrows;
+import org.h2.engine.Mode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class AsyncExecutorTests extends DataSourceBase {
+
+    private static final int ROWS = 16;
+
+    @BeforeAll
+    @SneakyThrows
+    static void init() {
+        Mode.ModeEnum mode = Mode.ModeEnum.MSSQLServer;
+        String url = "jdbc:h2:mem:async;MODE\\=%s;DB_CLOSE_DELAY\\=-1;IGNORECASE\\=FALSE;DATABASE_TO_UPPER\\=FALSE".formatted(mode.name());
+        buildDatasource(
+            "org.h2.Driver",
+            url,
+            null, null
+        );
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table material_supplier (id varchar(64) primary key, contact varchar(255), status varchar(255), title varchar(255))");
+            statement.execute("create table material (id varchar(64) primary key, supplier varchar(64), title varchar(255))");
+            try (PreparedStatement supplier = connection.prepareStatement("insert into material_supplier (id, title) values (?, ?)");
+                 PreparedStatement material = connection.prepareStatement("insert into material (id, supplier, title) values (?, ?, ?)")) {
+                for (int i = 0; i < ROWS; i++) {
+                    supplier.setString(1, "s" + i);
+                    supplier.setString(2, "supplier-" + i);
+                    supplier.executeUpdate();
+                    material.setString(1, "m" + i);
+                    material.setString(2, "s" + i);
+                    material.setString(3, "material-" + i);
+                    material.executeUpdate();
+                }
+            }
+        }
+    }
+
+    @AfterAll
+    static void clean() {
+        destroyDatasource();
+    }
+
+    /**
+     * Callers on several threads submit selects of two tables at once, every future gets the row it asked for.
+     */
+    @Test
+    @SneakyThrows
+    void concurrentRequests() {
+        AsyncLimiter limiter = new AsyncLimiter(4);
+        AsyncJsonQLExecutor executor = new AsyncJsonQLExecutor(new JsonQLCompiler(em, mockTableMetaCache), dataSource, limiter);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CompletableFuture<Object>>> submitted = new ArrayList<>();
+            for (int i = 0; i < ROWS * 4; i++) {
+                int row = i % ROWS;
+                String table = i % 2 == 0 ? "material_supplier" : "material";
+                String id = (i % 2 == 0 ? "s" : "m") + row;
+                submitted.add(callers.submit(() -> executor.executeDmlAsync("""
+                    {
+                      "operation": "select",
+                      "table": "%s",
+                      "condition": {
+                        "id": "%s"
+                      }
+                    }
+                    """.formatted(table, id))));
+            }
+            for (int i = 0; i < submitted.size(); i++) {
+                int row = i % ROWS;
+                String title = (i % 2 == 0 ? "supplier-" : "material-") + row;
+                Object result = submitted.get(i).get(10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS);
+                List<?> list = Assertions.assertInstanceOf(List.class, result);
+                Assertions.assertEquals(1, list.size());
+                Assertions.assertEquals(title, ((Map<?, ?>) list.get(0)).get("title"));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        Assertions.assertEquals(0, limiter.getPending());
+    }
+
+}
@@ -18,6 +18,7 @@ import javax.annotation.Nullable;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -123,6 +124,15 @@ public abstract class DataSourceBase extends TestsBase {
                 .name("title")
                 .type(String.class))
             .build());
+        tableMap.put("keyset_event", TableBuilder.builder("keyset_event")
+            .addColumn(columnBuilder -> columnBuilder
+                .name("id")
+                .privateKey(true)
+                .type(Long.class))
+            .addColumn(columnBuilder -> columnBuilder
+                .name("created_at")
+                .type(LocalDateTime.class))
+            .build());
 
         mockTableMetaCache = new MockTableMetaCache(tableMap);
 
@@ -0,0 +1,309 @@
+package io.github.honhimw.jsonql.hibernate5.datasource;
+
+import io.github.honhimw.jsonql.common.DataSourceInfo;
+import io.github.honhimw.jsonql.hibernate5.DataSourceHolder;
+import io.github.honhimw.jsonql.hibernate5.MetadataExtractorIntegrator;
+import io.github.honhimw.jsonql.hibernate5.meta.DataSourceCache;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Data sources are opened as stubs, no database is involved.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class DataSourceCacheTests extends TestsBase {
+
+    @Test
+    void noEvictionByDefault() {
+        StubCache cache = new StubCache(null, Integer.MAX_VALUE);
+        for (long id = 1; id <= 3; id++) {
+            cache.register(id, info(id));
+            cache.getDataSourceHolder(id);
+        }
+        assert cache.stats().open() == 3 && cache.stats().evictions() == 0;
+        cache.close();
+        assert cache.opened.values().stream().allMatch(StubHolder::isClosed);
+    }
+
+    @Test
+    @SneakyThrows
+    void overflowSkipsLeased() {
+        StubCache cache = new StubCache(null, 2);
+        for (long id = 1; id <= 4; id++) {
+            cache.register(id, info(id));
+        }
+        try (DataSourceCache.Lease lease = cache.lease(1L)) {
+            Thread.sleep(5);
+            cache.getDataSourceHolder(2L);
+            Thread.sleep(5);
+            // 1 is the least recently used, but leased
+            cache.getDataSourceHolder(3L);
+            assert !cache.opened.get(1L).isClosed();
+            assert cache.opened.get(2L).isClosed();
+            assert cache.stats().open() == 2 && cache.stats().evictions() == 1;
+        }
+        Thread.sleep(5);
+        cache.getDataSourceHolder(4L);
+        // 3 was used before 1 was released
+        assert cache.opened.get(3L).isClosed() && !cache.opened.get(1L).isClosed();
+        cache.close();
+    }
+
+    /**
+     * A data source slow to close does not hold up the eviction of another opening one.
+     */
+    @Test
+    @SneakyThrows
+    void overflowClosesOutsideTheCache() {
+        StubCache cache = new StubCache(null, 1);
+        for (long id = 1; id <= 3; id++) {
+            cache.register(id, info(id));
+        }
+        cache.getDataSourceHolder(1L);
+        CountDownLatch closing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        cache.opened.get(1L).closing = closing;
+        cache.opened.get(1L).release = release;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Thread.sleep(5);
+            Future<DataSourceHolder> second = executor.submit(() -> cache.getDataSourceHolder(2L));
+            assert closing.await(5, TimeUnit.SECONDS);
+            Thread.sleep(5);
+            Future<DataSourceHolder> third = CompletableFuture.supplyAsync(() -> cache.getDataSourceHolder(3L));
+            third.get(5, TimeUnit.SECONDS);
+            assert cache.opened.get(2L).isClosed() && !cache.opened.get(3L).isClosed();
+            assert !second.isDone();
+            release.countDown();
+            second.get(5, TimeUnit.SECONDS);
+            assert cache.opened.get(1L).isClosed() && cache.stats().evictions() == 2;
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+            cache.close();
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void idleSweepSkipsLeased() {
+        StubCache cache = new StubCache(Duration.ofMillis(100), Integer.MAX_VALUE);
+        cache.register(1L, info(1L));
+        cache.register(2L, info(2L));
+        cache.getDataSourceHolder(2L);
+        try (DataSourceCache.Lease ignored = cache.lease(1L)) {
+            awaitClosed(cache.opened.get(2L));
+            assert !cache.opened.get(1L).isClosed();
+        }
+        awaitClosed(cache.opened.get(1L));
+        assert cache.stats().open() == 0 && cache.stats().evictions() == 2;
+        // opened again on next use
+        try (DataSourceCache.Lease lease = cache.lease(1L)) {
+            assert !((StubHolder) lease.holder()).isClosed();
+        }
+        cache.close();
+    }
+
+    /**
+     * Leases taken while the sweeper closes idle data sources never see a closed holder.
+     */
+    @Test
+    @SneakyThrows
+    void sweepRacingLeases() {
+        StubCache cache = new StubCache(Duration.ofMillis(1), Integer.MAX_VALUE);
+        cache.register(1L, info(1L));
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger usedClosed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> {
+                    while (!stop.get()) {
+                        try (DataSourceCache.Lease lease = cache.lease(1L)) {
+                            StubHolder holder = (StubHolder) lease.holder();
+                            if (holder.isClosed()) {
+                                usedClosed.incrementAndGet();
+                            }
+                            Thread.onSpinWait();
+                            if (holder.isClosed()) {
+                                usedClosed.incrementAndGet();
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Thread.sleep(2_500);
+            stop.set(true);
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            cache.close();
+        }
+        assert usedClosed.get() == 0;
+    }
+
+    /**
+     * Concurrent first uses open the data source once and share it.
+     */
+    @Test
+    @SneakyThrows
+    void singleFlightOpen() {
+        StubCache cache = new StubCache(null, Integer.MAX_VALUE);
+        cache.register(1L, info(1L));
+        cache.openLatch = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<DataSourceHolder>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> cache.getDataSourceHolder(1L)));
+            }
+            // let every caller arrive while the first one is opening
+            Thread.sleep(200);
+            cache.openLatch.countDown();
+            DataSourceHolder first = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<DataSourceHolder> future : futures) {
+                assert future.get(10, TimeUnit.SECONDS) == first;
+            }
+        } finally {
+            executor.shutdownNow();
+            cache.close();
+        }
+        assert cache.opens.get() == 1;
+    }
+
+    /**
+     * After a failed open, callers fail fast with the failure as the cause until the backoff has passed.
+     */
+    @Test
+    @SneakyThrows
+    void backoffAfterFailedOpen() {
+        StubCache cache = new StubCache(null, Integer.MAX_VALUE);
+        cache.register(1L, info(1L));
+        IllegalStateException failure = new IllegalStateException("connection refused");
+        cache.openFailure = failure;
+        try {
+            cache.getDataSourceHolder(1L);
+            assert false;
+        } catch (IllegalStateException e) {
+            assert e == failure;
+        }
+        cache.openFailure = null;
+        try {
+            cache.getDataSourceHolder(1L);
+            assert false;
+        } catch (IllegalStateException e) {
+            assert e != failure && e.getCause() == failure;
+        }
+        assert cache.opens.get() == 1;
+        // first backoff is at most 500ms
+        Thread.sleep(600);
+        assert !((StubHolder) cache.getDataSourceHolder(1L)).isClosed();
+        assert cache.opens.get() == 2;
+        cache.close();
+    }
+
+    private static void awaitClosed(StubHolder holder) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!holder.isClosed() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assert holder.isClosed();
+    }
+
+    private static DataSourceInfo info(long id) {
+        DataSourceInfo info = new DataSourceInfo();
+        info.setId(String.valueOf(id));
+        return info;
+    }
+
+    static class StubCache extends DataSourceCache {
+
+        final Map<Long, StubHolder> opened = new ConcurrentHashMap<>();
+
+        final AtomicInteger opens = new AtomicInteger();
+
+        volatile CountDownLatch openLatch;
+
+        volatile RuntimeException openFailure;
+
+        StubCache(Duration idleTimeout, int maximumOpen) {
+            super(null, idleTimeout, maximumOpen);
+        }
+
+        @Override
+        @SneakyThrows
+        protected DataSourceHolder open(DataSourceInfo info) {
+            opens.incrementAndGet();
+            if (Objects.nonNull(openLatch)) {
+                openLatch.await(10, TimeUnit.SECONDS);
+            }
+            if (Objects.nonNull(openFailure)) {
+                throw openFailure;
+            }
+            StubHolder holder = new StubHolder(info.getId());
+            opened.put(Long.valueOf(info.getId()), holder);
+            return holder;
+        }
+
+    }
+
+    static class StubHolder extends DataSourceHolder {
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        /**
+         * Counted down when closing starts, if set.
+         */
+        volatile CountDownLatch closing;
+
+        /**
+         * Closing waits for it, if set.
+         */
+        volatile CountDownLatch release;
+
+        StubHolder(String id) {
+            super(null, null, null, new MetadataExtractorIntegrator());
+            getIntegrator().setDataSourceId(id);
+        }
+
+        boolean isClosed() {
+            return closed.get();
+        }
+
+        @Override
+        @SneakyThrows
+        public void close() {
+            if (Objects.nonNull(closing)) {
+                closing.countDown();
+            }
+            if (Objects.nonNull(release)) {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            closed.set(true);
+        }
+
+    }
+
+}
@@ -1,21 +1,58 @@
 package io.github.honhimw.jsonql.hibernate5.datasource;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.honhimw.jsonql.common.AsyncLimiter;
+import io.github.honhimw.jsonql.common.CountEstimator;
+import io.github.honhimw.jsonql.common.FieldExpression;
+import io.github.honhimw.jsonql.common.JsonQLMetrics;
+import io.github.honhimw.jsonql.common.Metrics;
+import io.github.honhimw.jsonql.common.ReplicaRouter;
+import io.github.honhimw.jsonql.common.RequestEvent;
+import io.github.honhimw.jsonql.common.ResultCache;
+import io.github.honhimw.jsonql.common.StreamingRequest;
+import io.github.honhimw.jsonql.hibernate5.AsyncJsonQLExecutor;
 import io.github.honhimw.jsonql.hibernate5.JDBCUtils;
 import io.github.honhimw.jsonql.hibernate5.JsonQLExecutor;
+import io.github.honhimw.jsonql.hibernate5.MetadataExtractorIntegrator;
 import io.github.honhimw.jsonql.hibernate5.ddl.ColumnModifier;
+import io.github.honhimw.jsonql.hibernate5.ddl.MetadataExtractor;
 import io.github.honhimw.jsonql.hibernate5.internal.JsonQLCompiler;
+import io.github.honhimw.jsonql.hibernate5.internal.PlanCache;
+import io.github.honhimw.jsonql.hibernate5.meta.LoadingTableMetaCache;
 import io.github.honhimw.jsonql.hibernate5.meta.SQLHolder;
+import io.github.honhimw.jsonql.hibernate5.meta.TablePrefetcher;
 import lombok.SneakyThrows;
 import org.h2.engine.Mode;
+import org.hibernate.boot.model.naming.Identifier;
 import org.hibernate.mapping.Column;
 import org.hibernate.mapping.SimpleValue;
+import org.hibernate.mapping.Table;
 import org.hibernate.type.StringNVarcharType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.intellij.lang.annotations.Language;
 import org.junit.jupiter.api.*;
 
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author hon_him
@@ -162,6 +199,758 @@ public class H2Tests extends DDLBase {
         }
     }
 
+    @Order(5)
+    @Test
+    @SneakyThrows
+    void planCache() {
+        JsonQLCompiler jsonQLCompiler = new JsonQLCompiler(em, mockTableMetaCache);
+        PlanCache planCache = new PlanCache(16);
+        jsonQLCompiler.acceptPlanCache(planCache);
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "brand_introduction",
+              "page": %d,
+              "pageSize": 10,
+              "condition": {
+                "id": "%s",
+                "title": {
+                  "contains": "%s"
+                }
+              }
+            }
+            """;
+        for (int i = 3; i < 6; i++) {
+            jsonQLCompiler.compile(MAPPER.readTree(select.formatted(i, "id" + i, "title" + i)));
+        }
+        assert planCache.size() == 1;
+        assert planCache.hitCount() == 1;
+
+        List<SQLHolder> cached = jsonQLCompiler.compile(MAPPER.readTree(select.formatted(7, "foo", "bar")));
+        List<SQLHolder> compiled = new JsonQLCompiler(em, mockTableMetaCache).compile(MAPPER.readTree(select.formatted(7, "foo", "bar")));
+        assert planCache.hitCount() == 2;
+        assert cached.size() == compiled.size();
+        for (int i = 0; i < compiled.size(); i++) {
+            assert cached.get(i).sql().equals(compiled.get(i).sql());
+            assert cached.get(i).parameters().equals(compiled.get(i).parameters());
+        }
+    }
+
+    @Order(6)
+    @Test
+    @SneakyThrows
+    void selectStream() {
+        JsonQLCompiler jsonQLCompiler = new JsonQLCompiler(em, mockTableMetaCache);
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "brand_introduction"
+            }
+            """;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        long count = new JsonQLExecutor(jsonQLCompiler).executeDmlStream(MAPPER.readTree(select), 1, rows::add);
+        printTable("stream", rows);
+        Assertions.assertEquals(2, count);
+        Assertions.assertEquals(2, rows.size());
+        Map<String, Object> titles = rows.stream().collect(Collectors.toMap(row -> String.valueOf(row.get("id")), row -> row.get("title")));
+        Assertions.assertEquals(Map.of("1", "foo", "2", "bar"), titles);
+
+        // auto-commit is disabled while streaming, so the fetch size takes effect, and restored on close
+        try (Connection connection = dataSource.getConnection()) {
+            List<PreparedStatement> statements = new ArrayList<>();
+            Connection tracking = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                Object result = method.invoke(connection, args);
+                if (result instanceof PreparedStatement statement) {
+                    statements.add(statement);
+                }
+                return result;
+            });
+            // the rows inserted by the transaction of the entity manager are not visible to this connection
+            SQLHolder sqlHolder = new SQLHolder("select 1 as n union all select 2 union all select 3 order by n", List.of());
+            try (Stream<Map<String, Object>> stream = JsonQLExecutor.executeDmlQueryStream(sqlHolder, 1, tracking)) {
+                Assertions.assertFalse(connection.getAutoCommit());
+                Assertions.assertEquals(1, statements.size());
+                Assertions.assertEquals(1, statements.get(0).getFetchSize());
+                Assertions.assertEquals(List.of(1L, 2L, 3L), stream.map(row -> ((Number) row.get("n")).longValue()).toList());
+            }
+            Assertions.assertTrue(connection.getAutoCommit());
+            Assertions.assertTrue(statements.get(0).isClosed());
+        }
+    }
+
+    @Order(7)
+    @Test
+    @SneakyThrows
+    void selectToGenerator() {
+        JsonQLExecutor executor = new JsonQLExecutor(new JsonQLCompiler(em, mockTableMetaCache));
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "brand_introduction",
+              "page": 1,
+              "pageSize": 10
+            }
+            """;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        executor.executeDml(MAPPER.readTree(select), outputStream);
+        Object expected = executor.executeDml(MAPPER.readTree(select));
+        assert MAPPER.readTree(outputStream.toByteArray()).equals(MAPPER.valueToTree(expected));
+
+        // collected first, but the same JSON
+        ObjectNode lazy = (ObjectNode) MAPPER.readTree(select);
+        lazy.put("countMode", "lazy");
+        outputStream.reset();
+        executor.executeDml(lazy, outputStream);
+        assert MAPPER.readTree(outputStream.toByteArray()).equals(MAPPER.valueToTree(executor.executeDml(lazy)));
+    }
+
+    @Order(8)
+    @Test
+    @SneakyThrows
+    void batchInsert() {
+        JsonQLExecutor executor = new JsonQLExecutor(new JsonQLCompiler(em, mockTableMetaCache));
+        @Language("json")
+        String jsonQL = """
+            {
+              "operation": "insert",
+              "table": "brand_introduction",
+              "batchSize": 2,
+              "data": [
+                {
+                  "id": "10",
+                  "title": "batch-1"
+                },
+                {
+                  "id": "11",
+                  "title": "batch-2"
+                },
+                {
+                  "id": "12",
+                  "title": "batch-3",
+                  "logo": "hello"
+                }
+              ]
+            }
+            """;
+        Object o = executor.executeDml(jsonQL);
+        assert o instanceof List<?> list && list.size() == 3;
+        log.info("batch insert result: {}", o);
+    }
+
+    @Order(9)
+    @Test
+    @SneakyThrows
+    void transaction() {
+        JsonQLExecutor executor = new JsonQLExecutor(new JsonQLCompiler(em, mockTableMetaCache));
+        @Language("json")
+        String jsonQL = """
+            {
+              "operation": "transaction",
+              "steps": [
+                {
+                  "name": "logo",
+                  "operation": "select",
+                  "table": "brand_introduction",
+                  "selections": ["logo"],
+                  "condition": {
+                    "id": "12"
+                  }
+                },
+                {
+                  "operation": "update",
+                  "table": "brand_introduction",
+                  "data": {
+                    "title": "transaction"
+                  },
+                  "condition": {
+                    "id": "12"
+                  }
+                }
+              ]
+            }
+            """;
+        Object o = executor.executeDml(jsonQL);
+        assert o instanceof Map<?, ?> map && map.get("step1").equals(1);
+        log.info("transaction result: {}", o);
+
+        @Language("json")
+        String dryRun = """
+            {
+              "operation": "transaction",
+              "steps": [
+                {
+                  "operation": "update",
+                  "table": "brand_introduction",
+                  "effectMaxRows": 0,
+                  "data": {
+                    "title": "dry run"
+                  },
+                  "condition": {
+                    "id": "12"
+                  }
+                }
+              ]
+            }
+            """;
+        boolean rejected = false;
+        try {
+            executor.executeDml(dryRun);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assert rejected;
+    }
+
+    @Order(10)
+    @Test
+    @SneakyThrows
+    void executeAsync() {
+        AsyncLimiter limiter = new AsyncLimiter(2);
+        AsyncJsonQLExecutor executor = new AsyncJsonQLExecutor(new JsonQLCompiler(em, mockTableMetaCache), dataSource, limiter);
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.executeDmlAsync("""
+                {
+                  "operation": "select",
+                  "table": "brand_introduction",
+                  "selections": ["id"]
+                }
+                """));
+        }
+        for (CompletableFuture<Object> future : futures) {
+            assert future.get(10, TimeUnit.SECONDS) instanceof List<?>;
+        }
+        assert limiter.getPending() == 0;
+    }
+
+    @Order(11)
+    @Test
+    @SneakyThrows
+    void lazyCount() {
+        JsonQLExecutor executor = new JsonQLExecutor(new JsonQLCompiler(em, mockTableMetaCache));
+        @Language("json")
+        String jsonQL = """
+            {
+              "operation": "select",
+              "table": "brand_introduction",
+              "page": 1,
+              "pageSize": 100,
+              "countMode": "lazy"
+            }
+            """;
+        Object o = executor.executeDml(jsonQL);
+        assert o instanceof Map<?, ?> map && map.get("list") instanceof List<?> list && map.get("total").equals((long) list.size());
+    }
+
+    @Order(12)
+    @Test
+    @SneakyThrows
+    @SuppressWarnings("unchecked")
+    void keyset() {
+        JsonQLExecutor executor = new JsonQLExecutor(new JsonQLCompiler(em, mockTableMetaCache));
+        @Language("json")
+        String firstPage = """
+            {
+              "operation": "select",
+              "table": "brand_introduction",
+              "orderBy": ["id"],
+              "pageSize": 2,
+              "after": []
+            }
+            """;
+        Map<String, Object> first = (Map<String, Object>) executor.executeDml(firstPage);
+        List<Map<String, Object>> firstList = (List<Map<String, Object>>) first.get("list");
+        assert firstList.size() == 2 && first.get("cursor") instanceof String;
+
+        @Language("json")
+        String nextPage = """
+            {
+              "operation": "select",
+              "table": "brand_introduction",
+              "orderBy": ["id"],
+              "pageSize": 2,
+              "cursor": "%s"
+            }
+            """.formatted(first.get("cursor"));
+        Map<String, Object> next = (Map<String, Object>) executor.executeDml(nextPage);
+        List<Map<String, Object>> nextList = (List<Map<String, Object>>) next.get("list");
+        String lastId = String.valueOf(firstList.get(1).get("id"));
+        assert nextList.stream().allMatch(row -> String.valueOf(row.get("id")).compareTo(lastId) > 0);
+    }
+
+    @Order(13)
+    @Test
+    void loadingTableMetaCache() {
+        List<String> changed = new ArrayList<>();
+        LoadingTableMetaCache tableMetaCache = LoadingTableMetaCache.builder(new MetadataExtractor(integrator))
+            .maximumSize(16)
+            .onChange(changed::add)
+            .build();
+        Table table = tableMetaCache.buildTable("brand_introduction");
+        assert Objects.nonNull(table) && Objects.nonNull(table.getColumn(Identifier.toIdentifier("title")));
+        assert tableMetaCache.buildTable("brand_introduction") == table;
+        assert Objects.isNull(tableMetaCache.buildTable("not_exists"));
+        assert tableMetaCache.stats().loadCount() == 2;
+
+        tableMetaCache.invalidate("brand_introduction");
+        assert changed.equals(List.of("brand_introduction"));
+        assert tableMetaCache.buildTable("brand_introduction") != table;
+    }
+
+    @Order(14)
+    @Test
+    void prefetchTables() {
+        MetadataExtractor metadataExtractor = new MetadataExtractor(integrator);
+        Map<String, List<MetadataExtractor.ColumnMetaData>> tableMetas = metadataExtractor.getTableMetas(List.of("brand_introduction", "not_exists"));
+        assert tableMetas.keySet().equals(Set.of("brand_introduction"));
+        assert tableMetas.get("brand_introduction").stream().map(MetadataExtractor.ColumnMetaData::name).collect(Collectors.toSet())
+            .equals(metadataExtractor.getTableMeta("brand_introduction").stream().map(MetadataExtractor.ColumnMetaData::name).collect(Collectors.toSet()));
+
+        Map<String, Table> tables = TablePrefetcher.prefetch(metadataExtractor, em, List.of("brand_introduction", "not_exists"), 2);
+        assert tables.size() == 1 && Objects.nonNull(tables.get("brand_introduction").getColumn(Identifier.toIdentifier("title")));
+    }
+
+    @Order(15)
+    @Test
+    @SneakyThrows
+    void metrics() {
+        Set<JsonQLMetrics.Phase> phases = EnumSet.noneOf(JsonQLMetrics.Phase.class);
+        List<String> requests = new ArrayList<>();
+        List<Long> rows = new ArrayList<>();
+        Metrics.use(new JsonQLMetrics() {
+            @Override
+            public synchronized void recordPhase(Phase phase, long nanos) {
+                phases.add(phase);
+            }
+
+            @Override
+            public synchronized void recordRequest(String operation, String table, String dataSourceId, long nanos, boolean success) {
+                requests.add("%s:%s:%s".formatted(operation, table, success));
+            }
+
+            @Override
+            public synchronized void recordRows(String operation, String table, String dataSourceId, long count) {
+                rows.add(count);
+            }
+        });
+        try {
+            JsonQLExecutor executor = new JsonQLExecutor(new JsonQLCompiler(em, mockTableMetaCache));
+            @Language("json")
+            String select = """
+                {
+                  "operation": "select",
+                  "table": "brand_introduction"
+                }
+                """;
+            List<?> result = (List<?>) executor.executeDml(select);
+            assert phases.containsAll(EnumSet.allOf(JsonQLMetrics.Phase.class));
+            assert requests.equals(List.of("select:brand_introduction:true"));
+            assert rows.equals(List.of((long) result.size()));
+            // streamed to a generator as well
+            executor.executeDml(MAPPER.readTree(select), new ByteArrayOutputStream());
+            assert requests.equals(List.of("select:brand_introduction:true", "select:brand_introduction:true"));
+            assert rows.equals(List.of((long) result.size(), (long) result.size()));
+        } finally {
+            Metrics.use(JsonQLMetrics.NONE);
+        }
+    }
+
+    @Order(16)
+    @Test
+    @SneakyThrows
+    void requestEvent() {
+        JsonQLExecutor executor = new JsonQLExecutor(new JsonQLCompiler(em, mockTableMetaCache));
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "brand_introduction"
+            }
+            """;
+        Path file = Files.createTempFile("jsonql", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(RequestEvent.class);
+            recording.start();
+            executor.executeDml(select);
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("io.github.honhimw.jsonql.Request"))
+                .toList();
+            assert events.size() == 1;
+            RecordedEvent event = events.get(0);
+            assert event.getString("operation").equals("select") && event.getString("table").equals("brand_introduction");
+            assert event.getString("planCache").equals("none") && event.getInt("sqlHash") != 0;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Order(17)
+    @Test
+    @SneakyThrows
+    void streamingRequest() {
+        JsonQLCompiler compiler = new JsonQLCompiler(em, mockTableMetaCache);
+        @Language("json")
+        String jsonQL = """
+            {
+              "data": [
+                {
+                  "title": "stream-1"
+                },
+                {
+                  "title": "stream-2"
+                }
+              ],
+              "operation": "insert",
+              "table": "brand_introduction"
+            }
+            """;
+        StreamingRequest request = StreamingRequest.read(jsonQL);
+        assert request.isBatch() && !request.getRootNode().has("data");
+        List<SQLHolder> streamed = compiler.compile(request);
+        List<SQLHolder> expected = compiler.compile(MAPPER.readTree(jsonQL));
+        assert streamed.equals(expected);
+        assert request.toTree().equals(MAPPER.readTree(jsonQL));
+    }
+
+    @Order(18)
+    @Test
+    void fieldExpression() {
+        assert FieldExpression.of("title").isField();
+        FieldExpression refField = FieldExpression.of("b.title");
+        assert refField.isRefField() && refField.ref().equals("b") && refField.name().equals("title");
+        assert FieldExpression.of("b.title") == refField;
+        assert FieldExpression.of("count(id) as total").kind() == FieldExpression.Kind.OTHER;
+        assert FieldExpression.of("1title").kind() == FieldExpression.Kind.OTHER;
+        assert FieldExpression.of("b.").kind() == FieldExpression.Kind.OTHER;
+        assert "order_0".equals(FieldExpression.placeholder("_{order_0}_"));
+        assert Objects.isNull(FieldExpression.placeholder("_{order-0}_"));
+        assert Objects.isNull(FieldExpression.placeholder("plain value"));
+    }
+
+    @Order(19)
+    @Test
+    @SneakyThrows
+    void resultCache() {
+        JsonQLCompiler compiler = new JsonQLCompiler(em, mockTableMetaCache);
+        ResultCache resultCache = ResultCache.builder()
+            .table("brand_introduction", Duration.ofMinutes(1))
+            .build();
+        compiler.acceptResultCache(resultCache);
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "brand_introduction"
+            }
+            """;
+        @Language("json")
+        String insert = """
+            {
+              "data": {
+                "title": "cached"
+              },
+              "operation": "insert",
+              "table": "brand_introduction"
+            }
+            """;
+        // selects in a transaction, like those of the entity manager here, are not cached
+        try (Connection connection = dataSource.getConnection()) {
+            List<?> first = (List<?>) JsonQLExecutor.execute(select, compiler, connection);
+            assert JsonQLExecutor.execute(select, compiler, connection) == first;
+            ResultCache.Stats stats = resultCache.stats();
+            assert stats.hits() == 1 && stats.misses() == 1;
+            boolean unmodifiable = false;
+            try {
+                first.clear();
+            } catch (UnsupportedOperationException e) {
+                unmodifiable = true;
+            }
+            assert unmodifiable;
+
+            JsonQLExecutor.execute(insert, compiler, connection);
+            List<?> afterInsert = (List<?>) JsonQLExecutor.execute(select, compiler, connection);
+            assert afterInsert != first && afterInsert.size() == first.size() + 1;
+            stats = resultCache.stats();
+            assert stats.misses() == 2 && stats.invalidations() == 1;
+
+            connection.setAutoCommit(false);
+            try {
+                JsonQLExecutor.execute(select, compiler, connection);
+                assert resultCache.stats().misses() == 2 && resultCache.stats().hits() == 1;
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Order(20)
+    @Test
+    @SneakyThrows
+    void replicaRouter() {
+        // the test pool stands in for a replica of the same database, the router is not closed
+        ReplicaRouter replicaRouter = new ReplicaRouter(List.of(dataSource), ReplicaRouter.Balancing.LEAST_PENDING, 60_000);
+        try (ReplicaRouter.Lease lease = replicaRouter.acquire(null)) {
+            assert Objects.nonNull(lease) && replicaRouter.pending()[0] == 1;
+        }
+        assert replicaRouter.pending()[0] == 0;
+        JsonQLExecutor executor = new JsonQLExecutor(new JsonQLCompiler(em, mockTableMetaCache), replicaRouter, "writer");
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "brand_introduction"
+            }
+            """;
+        @Language("json")
+        String insert = """
+            {
+              "data": {
+                "title": "replica"
+              },
+              "operation": "insert",
+              "table": "brand_introduction"
+            }
+            """;
+        List<?> before = (List<?>) executor.executeDml(select);
+        executor.executeDml(insert);
+        // within the read-your-writes window of the writer only
+        assert Objects.isNull(replicaRouter.acquire("writer"));
+        try (ReplicaRouter.Lease lease = replicaRouter.acquire("reader")) {
+            assert Objects.nonNull(lease);
+        }
+        List<?> after = (List<?>) executor.executeDml(select);
+        assert after.size() == before.size() + 1;
+    }
+
+    /**
+     * Timestamps apart by less than a millisecond, paged by a composite key of mixed directions.
+     */
+    @Order(21)
+    @Test
+    @SneakyThrows
+    @SuppressWarnings("unchecked")
+    void keysetByTimestamp() {
+        sessionContract.doWork(connection -> {
+            connection.prepareStatement("create table keyset_event (id bigint primary key, created_at timestamp(9))").execute();
+            connection.prepareStatement("""
+                insert into keyset_event values
+                (1, '2026-01-01 00:00:00.000000001'), (2, '2026-01-01 00:00:00.000001'), (3, '2026-01-01 00:00:00.000001'),
+                (4, '2026-01-01 00:00:00.000002'), (5, '2026-01-01 00:00:01')
+                """).execute();
+        });
+        JsonQLExecutor executor = new JsonQLExecutor(new JsonQLCompiler(em, mockTableMetaCache));
+        @Language("json")
+        String page = """
+            {
+              "operation": "select",
+              "table": "keyset_event",
+              "orderBy": ["created_at", "-id"],
+              "pageSize": 2,
+              "cursor": %s
+            }
+            """;
+        List<Object> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            Map<String, Object> result = (Map<String, Object>) executor.executeDml(page.formatted(Objects.isNull(cursor) ? "null" : "\"%s\"".formatted(cursor)));
+            for (Map<String, Object> row : (List<Map<String, Object>>) result.get("list")) {
+                ids.add(row.get("id"));
+            }
+            cursor = (String) result.get("cursor");
+        } while (Objects.nonNull(cursor));
+        assert ids.equals(List.of(1L, 3L, 2L, 4L, 5L));
+    }
+
+    /**
+     * A tenant integrator of a shared bootstrap reads the metadata over the tenant's data source only.
+     */
+    @Order(22)
+    @Test
+    void sharedExtractor() {
+        MetadataExtractorIntegrator tenant = integrator.derive("tenant");
+        boolean rejected = false;
+        try {
+            new MetadataExtractor(tenant);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assert rejected;
+
+        MetadataExtractor extractor = new MetadataExtractor(tenant, dataSource);
+        rejected = false;
+        try {
+            extractor.getDatabaseInformation();
+        } catch (IllegalStateException e) {
+            rejected = true;
+        }
+        assert rejected;
+        assert extractor.getTableMeta("brand_introduction").stream().anyMatch(column -> column.name().equals("title"));
+        assert Objects.isNull(extractor.getTableMeta("not_exists"));
+
+        LoadingTableMetaCache tableMetaCache = LoadingTableMetaCache.builder(extractor).build();
+        assert Objects.nonNull(tableMetaCache.buildTable("brand_introduction").getColumn(Identifier.toIdentifier("title")));
+        assert Objects.isNull(tableMetaCache.buildTable("not_exists"));
+    }
+
+    /**
+     * A batch insert given as a tree runs in one transaction too, a failing row rolls back the rows before it.
+     */
+    @Order(23)
+    @Test
+    @SneakyThrows
+    void atomicBatchInsert() {
+        JsonQLCompiler compiler = new JsonQLCompiler(em, mockTableMetaCache);
+        @Language("json")
+        String insert = """
+            {
+              "operation": "insert",
+              "table": "brand_introduction",
+              "batchSize": 1,
+              "data": [
+                {
+                  "id": "30",
+                  "title": "atomic-1"
+                },
+                {
+                  "id": "30",
+                  "title": "atomic-2"
+                }
+              ]
+            }
+            """;
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "brand_introduction",
+              "condition": {
+                "id": "30"
+              }
+            }
+            """;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean failed = false;
+            try {
+                JsonQLExecutor.execute(MAPPER.readTree(insert), compiler, connection);
+            } catch (SQLException e) {
+                failed = true;
+            }
+            assert failed && connection.getAutoCommit();
+            assert ((List<?>) JsonQLExecutor.execute(MAPPER.readTree(select), compiler, connection)).isEmpty();
+        }
+    }
+
+    /**
+     * H2 estimates an unfiltered count by the table statistics. The total is flagged approximate, and counted exactly
+     * below the threshold or with a filter.
+     */
+    @Order(24)
+    @Test
+    @SneakyThrows
+    @SuppressWarnings("unchecked")
+    void estimateCount() {
+        JsonQLCompiler compiler = new JsonQLCompiler(em, mockTableMetaCache);
+        JsonQLExecutor executor = new JsonQLExecutor(compiler);
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "brand_introduction",
+              "page": 1,
+              "pageSize": 100,
+              "countMode": "estimate",
+              "estimateThreshold": %d
+            }
+            """;
+        @Language("json")
+        String filtered = """
+            {
+              "operation": "select",
+              "table": "brand_introduction",
+              "page": 1,
+              "pageSize": 100,
+              "countMode": "estimate",
+              "estimateThreshold": 0,
+              "condition": {
+                "title": {
+                  "!contains": "zzz"
+                }
+              }
+            }
+            """;
+        Long exact = (Long) sessionContract.doReturningWork(connection -> {
+            ResultSet resultSet = connection.prepareStatement("select count(*) as c from brand_introduction").executeQuery();
+            return JDBCUtils.extractResult(resultSet);
+        }).get(0).get("c");
+        List<SQLHolder> compiled = compiler.compile(MAPPER.readTree(select.formatted(0)));
+        Long estimate = sessionContract.doReturningWork(connection ->
+            CountEstimator.estimate(connection, compiled.get(1).sql(), compiled.get(1).parameters(), "brand_introduction"));
+        assert Objects.nonNull(estimate);
+        List<SQLHolder> compiledFiltered = compiler.compile(MAPPER.readTree(filtered));
+        assert Objects.isNull(sessionContract.doReturningWork(connection ->
+            CountEstimator.estimate(connection, compiledFiltered.get(1).sql(), compiledFiltered.get(1).parameters(), "brand_introduction")));
+
+        Map<String, Object> approximate = (Map<String, Object>) executor.executeDml(select.formatted(0));
+        assert Boolean.TRUE.equals(approximate.get("approximate")) && approximate.get("total").equals(estimate);
+        assert ((List<?>) approximate.get("list")).size() == exact;
+
+        // below the threshold
+        Map<String, Object> counted = (Map<String, Object>) executor.executeDml(select.formatted(Long.MAX_VALUE));
+        assert Boolean.FALSE.equals(counted.get("approximate")) && counted.get("total").equals(exact);
+
+        // no estimate for a filtered count
+        Object filteredTotal = sessionContract.doReturningWork(connection -> JsonQLExecutor.executeDmlQuery(compiledFiltered.get(1), connection))
+            .get(0).values().iterator().next();
+        counted = (Map<String, Object>) executor.executeDml(filtered);
+        assert Boolean.FALSE.equals(counted.get("approximate")) && counted.get("total").equals(filteredTotal);
+    }
+
+    /**
+     * Selects routed to a replica bypass the result cache, those on the primary are cached.
+     */
+    @Order(25)
+    @Test
+    @SneakyThrows
+    void replicaNotCached() {
+        JsonQLCompiler compiler = new JsonQLCompiler(em, mockTableMetaCache);
+        ResultCache resultCache = ResultCache.builder()
+            .table("brand_introduction", Duration.ofMinutes(1))
+            .build();
+        compiler.acceptResultCache(resultCache);
+        // the test pool stands in for a replica of the same database, the router is not closed
+        ReplicaRouter replicaRouter = new ReplicaRouter(List.of(dataSource), ReplicaRouter.Balancing.ROUND_ROBIN, 0);
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "brand_introduction"
+            }
+            """;
+        // selects only leave the primary while it is not in a transaction
+        sessionContract.doWork(connection -> connection.setAutoCommit(true));
+        try {
+            JsonQLExecutor routed = new JsonQLExecutor(compiler, replicaRouter);
+            routed.executeDml(select);
+            routed.executeDml(select);
+            ResultCache.Stats stats = resultCache.stats();
+            assert stats.hits() == 0 && stats.misses() == 0 && stats.size() == 0;
+
+            JsonQLExecutor primary = new JsonQLExecutor(compiler);
+            primary.executeDml(select);
+            primary.executeDml(select);
+            stats = resultCache.stats();
+            assert stats.hits() == 1 && stats.misses() == 1;
+        } finally {
+            sessionContract.doWork(connection -> connection.setAutoCommit(false));
+        }
+    }
+
     @Order(Integer.MAX_VALUE)
     @Test
     void dropTable() {
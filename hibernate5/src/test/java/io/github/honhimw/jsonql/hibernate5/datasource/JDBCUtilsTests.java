@@ -0,0 +1,48 @@
+package io.github.honhimw.jsonql.hibernate5.datasource;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.github.honhimw.jsonql.hibernate5.JDBCUtils;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class JDBCUtilsTests extends TestsBase {
+
+    /**
+     * Rows written to a generator are the same JSON as the serialized extracted rows.
+     */
+    @Test
+    @SneakyThrows
+    void writeResult() {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:jdbc_utils;DB_CLOSE_DELAY=-1");
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table typed_value (id bigint primary key, created timestamp(6), ratio float, amount real, price decimal(10, 2), enabled boolean, title varchar(255))");
+            statement.execute("insert into typed_value values (9007199254740993, timestamp '2024-07-02 10:11:12.123456', 0.1, 0.3, 12.34, true, 'value')");
+            statement.execute("insert into typed_value values (2, null, null, null, null, null, null)");
+
+            String expected;
+            try (ResultSet resultSet = statement.executeQuery("select * from typed_value order by id")) {
+                expected = MAPPER.writeValueAsString(JDBCUtils.extractResult(resultSet));
+            }
+            StringWriter writer = new StringWriter();
+            try (JsonGenerator generator = MAPPER.createGenerator(writer);
+                 ResultSet resultSet = statement.executeQuery("select * from typed_value order by id")) {
+                Assertions.assertEquals(2, JDBCUtils.writeResult(resultSet, generator));
+            }
+            Assertions.assertEquals(expected, writer.toString());
+            Assertions.assertTrue(expected.contains("\"9007199254740993\""), expected);
+        }
+    }
+
+}
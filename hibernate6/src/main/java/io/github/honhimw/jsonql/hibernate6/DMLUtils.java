@@ -4,7 +4,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.github.honhimw.jsonql.common.FakePreparedStatement;
+import io.github.honhimw.jsonql.common.JsonQLMetrics;
 import io.github.honhimw.jsonql.common.JsonUtils;
+import io.github.honhimw.jsonql.common.Metrics;
 import io.github.honhimw.jsonql.hibernate6.supports.MockSelection;
 import io.github.honhimw.jsonql.hibernate6.supports.WildcardSelection;
 import jakarta.persistence.EntityManager;
@@ -14,7 +16,6 @@ import jakarta.persistence.Tuple;
 import jakarta.persistence.criteria.*;
 import jakarta.persistence.metamodel.EntityType;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -112,6 +113,8 @@ public class DMLUtils {
 
     private final Table table;
 
+    private final long schemaVersion;
+
     private EntityType<Object> entityType;
 
     private Dialect dialect;
@@ -124,28 +127,74 @@ public class DMLUtils {
 
     private JpaMetamodelImpl jpaMetamodel;
 
-    @Setter
-    private int firstPageNumber = 1;
-
     public static DMLUtils getInstance(EntityManager em, Table table) {
         return getInstance(em, table, MetadataExtractorIntegrator.INSTANCE);
     }
 
+    /**
+     * Initialized instances are cached in the integrator by entity manager and table instance, reused as long as
+     * the table structure is unchanged. Tenants of a shared bootstrap use the same integrator, and tables of the
+     * same name may live in different schemas, so neither the name nor {@link Table#equals} identifies them.
+     */
     public static DMLUtils getInstance(EntityManager em, Table table, MetadataExtractorIntegrator integrator) {
-        return new DMLUtils(em, table, integrator);
+        long schemaVersion = schemaVersion(table);
+        CacheKey cacheKey = new CacheKey(em, table);
+        DMLUtils dmlUtils = integrator.getDmlUtilsCache().getIfPresent(cacheKey);
+        if (Objects.isNull(dmlUtils) || dmlUtils.schemaVersion != schemaVersion) {
+            dmlUtils = new DMLUtils(em, table, integrator, schemaVersion);
+            integrator.getDmlUtilsCache().put(cacheKey, dmlUtils);
+        }
+        return dmlUtils;
+    }
+
+    /**
+     * Drop the cached instances of every table with the given name.
+     */
+    public static void invalidate(MetadataExtractorIntegrator integrator, String tableName) {
+        integrator.getDmlUtilsCache().asMap().keySet().removeIf(cacheKey -> StringUtils.equals(cacheKey.table().getName(), tableName));
     }
 
-    private DMLUtils(EntityManager em, Table table, MetadataExtractorIntegrator integrator) {
+    private DMLUtils(EntityManager em, Table table, MetadataExtractorIntegrator integrator, long schemaVersion) {
         this.em = em;
         this.table = table;
+        this.schemaVersion = schemaVersion;
         init(integrator);
     }
 
+    /**
+     * Tables are mutable, e.g. joins add foreign keys to the cached table, so fingerprint what the entity is built from.
+     */
+    private static long schemaVersion(Table table) {
+        long version = table.getColumnSpan();
+        for (Column column : table.getColumns()) {
+            version = 31 * version + Objects.hash(column.getName(), column.isNullable(), System.identityHashCode(column.getValue()));
+        }
+        PrimaryKey primaryKey = table.getPrimaryKey();
+        if (Objects.nonNull(primaryKey)) {
+            version = 31 * version + primaryKey.getColumnSpan();
+        }
+        for (ForeignKey foreignKey : table.getForeignKeys().values()) {
+            Table referencedTable = foreignKey.getReferencedTable();
+            version = 31 * version + Objects.hash(foreignKey.getName(), System.identityHashCode(referencedTable));
+            if (Objects.nonNull(referencedTable)) {
+                version = 31 * version + referencedTable.getColumnSpan();
+            }
+        }
+        return version;
+    }
+
     public CriteriaBuilder getCriteriaBuilder() {
         return em.getCriteriaBuilder();
     }
 
     public SelectBuilder select() {
+        return select(1);
+    }
+
+    /**
+     * @param firstPageNumber page number of the first page, e.g. 0 for zero-based paging
+     */
+    public SelectBuilder select(int firstPageNumber) {
         return new SelectBuilder(this, firstPageNumber);
     }
 
@@ -445,6 +494,7 @@ public class DMLUtils {
         }
 
         private SQLHolder jdbcQL(CriteriaQuery<?> criteriaQuery, boolean doLimit) {
+            long start = Metrics.start();
             SqlAstTranslatorFactory sqlAstTranslatorFactory = dialect.getSqlAstTranslatorFactory();
             SqmTranslatorFactory sqmTranslatorFactory = dialect.getSqmTranslatorFactory();
 
@@ -498,6 +548,8 @@ public class DMLUtils {
 
             SqmTranslation<SelectStatement> sqmTranslation = selectTranslator.translate();
             SelectStatement sqlAst = sqmTranslation.getSqlAst();
+            Metrics.phase(JsonQLMetrics.Phase.CRITERIA, start);
+            start = Metrics.start();
 
             SqlAstTranslator<JdbcOperationQuerySelect> sqlAstTranslator = sqlAstTranslatorFactory
                 .buildSelectTranslator(_ref.integrator.getSessionFactory(), sqlAst);
@@ -545,6 +597,7 @@ public class DMLUtils {
             List<Object> parameters = fakePreparedStatement.getParams();
             String jdbcQL = translate.getSqlString();
             fakePreparedStatement.close();
+            Metrics.phase(JsonQLMetrics.Phase.TRANSLATE, start);
             return new SQLHolder(jdbcQL, parameters);
         }
 
@@ -1098,6 +1151,7 @@ public class DMLUtils {
         SqmTranslatorFactory sqmTranslatorFactory,
         SqlAstTranslatorFactory sqlAstTranslatorFactory
     ) throws SQLException {
+        long start = Metrics.start();
         QueryOptions queryOptions = QueryOptions.READ_WRITE;
         DomainParameterXref domainParameterXref = DomainParameterXref.from(sqmDmlStatement);
         ParameterMetadataImpl parameterMetadata = domainParameterXref.hasParameters()
@@ -1151,6 +1205,8 @@ public class DMLUtils {
 
         SqmTranslation<? extends MutationStatement> sqmTranslation = mutationTranslator.translate();
         MutationStatement sqlAst = sqmTranslation.getSqlAst();
+        Metrics.phase(JsonQLMetrics.Phase.CRITERIA, start);
+        start = Metrics.start();
 
         SqlAstTranslator<? extends JdbcOperationQueryMutation> sqlAstTranslator = sqlAstTranslatorFactory
             .buildMutationTranslator(integrator.getSessionFactory(), sqlAst);
@@ -1193,6 +1249,7 @@ public class DMLUtils {
             });
         }
         List<Object> params = preparedStatement.getParams();
+        Metrics.phase(JsonQLMetrics.Phase.TRANSLATE, start);
         return new SQLHolder(translate.getSqlString(), params);
     }
 
@@ -1359,4 +1416,21 @@ public class DMLUtils {
         }
     }
 
+    /**
+     * Compared by identity, an entity manager per tenant and a table per schema.
+     */
+    record CacheKey(EntityManager em, Table table) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CacheKey other && other.em == em && other.table == table;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(em) + System.identityHashCode(table);
+        }
+
+    }
+
 }
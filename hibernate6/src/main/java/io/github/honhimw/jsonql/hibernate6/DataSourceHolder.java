@@ -2,14 +2,20 @@ package io.github.honhimw.jsonql.hibernate6;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import io.github.honhimw.jsonql.common.AdaptivePoolSizer;
+import io.github.honhimw.jsonql.common.AsyncLimiter;
 import io.github.honhimw.jsonql.common.DataSourceInfo;
 import io.github.honhimw.jsonql.common.JDBCDriverType;
+import io.github.honhimw.jsonql.common.PoolSettings;
+import io.github.honhimw.jsonql.common.ReplicaInfo;
+import io.github.honhimw.jsonql.common.ReplicaRouter;
 import io.github.honhimw.jsonql.hibernate6.internal.JsonQLCompiler;
 import io.github.honhimw.jsonql.hibernate6.meta.TableMetaCache;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.Validate;
+import org.hibernate.Session;
 import org.hibernate.SharedSessionContract;
 import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
@@ -22,8 +28,8 @@ import jakarta.annotation.Nonnull;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
-import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 /**
  * @author hon_him
@@ -35,6 +41,8 @@ public class DataSourceHolder implements AutoCloseable {
 
     private static final Logger P6SPY_LOGGER = LoggerFactory.getLogger("driver.logging");
 
+    private static volatile Executor asyncExecutor = AsyncLimiter.DEFAULT_EXECUTOR;
+
     private final HikariDataSource dataSource;
 
     private final EntityManager em;
@@ -45,6 +53,13 @@ public class DataSourceHolder implements AutoCloseable {
 
     private JsonQLCompiler compiler;
 
+    private AsyncLimiter limiter;
+
+    /**
+     * Router over the read replicas, null without replicas.
+     */
+    private ReplicaRouter replicaRouter;
+
     public DataSourceHolder(HikariDataSource dataSource, EntityManager em, SharedSessionContract sessionContract, MetadataExtractorIntegrator integrator) {
         this.dataSource = dataSource;
         this.em = em;
@@ -53,14 +68,70 @@ public class DataSourceHolder implements AutoCloseable {
     }
 
     public static DataSourceHolder getInstance(DataSourceInfo dto) {
-        DataSourceHolder instance = getInstance(dto.getDriverType(), dto.getHost(), dto.getPort(), dto.getUsername(), dto.getPassword(), dto.getProperties());
+        DataSourceHolder instance = getInstance(dto.getDriverType(), dto.getHost(), dto.getPort(), dto.getUsername(), dto.getPassword(), dto.getProperties(), dto.getPool());
         instance.getIntegrator().setDataSourceId(dto.getId());
+        try {
+            instance.replicaRouter = createReplicaRouter(dto);
+        } catch (RuntimeException e) {
+            try {
+                instance.close();
+            } catch (Exception closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
         return instance;
     }
 
+    /**
+     * Like {@link #getInstance(DataSourceInfo)}, but only the pool is its own, the Hibernate bootstrap is shared with
+     * the other data sources of the same driver and database version, see {@link SharedBootstrap}.
+     */
+    public static DataSourceHolder getSharedInstance(DataSourceInfo dto) {
+        String tenantId = dto.getId();
+        HikariDataSource dataSource = createDataSource(dto.getHost(), dto.getPort(), dto.getUsername(), dto.getPassword(), dto.getProperties(), dto.getDriverType(), dto.getPool());
+        SharedBootstrap bootstrap = null;
+        ReplicaRouter replicaRouter = null;
+        try {
+            replicaRouter = createReplicaRouter(dto);
+            bootstrap = SharedBootstrap.of(dto.getDriverType(), tenantId, dataSource);
+            Session session = bootstrap.openSession(tenantId);
+            SharedBootstrap sharedBootstrap = bootstrap;
+            DataSourceHolder instance = new DataSourceHolder(dataSource, session, session.unwrap(SharedSessionContractImplementor.class), bootstrap.integrator(tenantId)) {
+                @Override
+                public void close() {
+                    session.close();
+                    sharedBootstrap.release(tenantId, dataSource);
+                    dataSource.close();
+                    if (Objects.nonNull(getReplicaRouter())) {
+                        getReplicaRouter().close();
+                    }
+                }
+            };
+            instance.replicaRouter = replicaRouter;
+            return instance;
+        } catch (RuntimeException e) {
+            if (Objects.nonNull(bootstrap)) {
+                bootstrap.release(tenantId, dataSource);
+            }
+            dataSource.close();
+            if (Objects.nonNull(replicaRouter)) {
+                replicaRouter.close();
+            }
+            throw e;
+        }
+    }
+
     public static DataSourceHolder getInstance(JDBCDriverType driverType, String host, int port, String username, String password, Map<String, Object> properties) {
+        return getInstance(driverType, host, port, username, password, properties, null);
+    }
+
+    /**
+     * @param poolSettings defaults of {@link PoolSettings} if null
+     */
+    public static DataSourceHolder getInstance(JDBCDriverType driverType, String host, int port, String username, String password, Map<String, Object> properties, PoolSettings poolSettings) {
 
-        HikariDataSource dataSource = createDataSource(host, port, username, password, properties, driverType);
+        HikariDataSource dataSource = createDataSource(host, port, username, password, properties, driverType, poolSettings);
 
         HibernatePersistenceProvider hibernatePersistenceProvider = new HibernatePersistenceProvider();
         MutablePersistenceUnitInfo info = new MutablePersistenceUnitInfo() {
@@ -84,16 +155,23 @@ public class DataSourceHolder implements AutoCloseable {
         MetadataExtractorIntegrator integrator = new MetadataExtractorIntegrator();
         hibernateProperties.put("hibernate.integrator_provider", (IntegratorProvider) () -> Collections.singletonList(integrator));
         hibernateProperties.put(AvailableSettings.SHOW_SQL, "true");
-        EntityManagerFactory containerEntityManagerFactory = hibernatePersistenceProvider.createContainerEntityManagerFactory(info, hibernateProperties);
-        EntityManager em = containerEntityManagerFactory.createEntityManager();
-        SharedSessionContractImplementor sessionContract = em.unwrap(SharedSessionContractImplementor.class);
+        try {
+            EntityManagerFactory containerEntityManagerFactory = hibernatePersistenceProvider.createContainerEntityManagerFactory(info, hibernateProperties);
+            EntityManager em = containerEntityManagerFactory.createEntityManager();
+            SharedSessionContractImplementor sessionContract = em.unwrap(SharedSessionContractImplementor.class);
 
-        Validate.validState(em.isOpen(), "EntityManager under an unavailable state.");
+            Validate.validState(em.isOpen(), "EntityManager under an unavailable state.");
 
-        return new DataSourceHolder(dataSource, em, sessionContract, integrator);
+            return new DataSourceHolder(dataSource, em, sessionContract, integrator);
+        } catch (RuntimeException e) {
+            // a failed bootstrap must not leave its pool open
+            dataSource.close();
+            throw e;
+        }
     }
 
-    private static HikariDataSource createDataSource(String host, int port, String username, String password, Map<String, Object> properties, JDBCDriverType driverType) {
+    private static HikariDataSource createDataSource(String host, int port, String username, String password, Map<String, Object> properties, JDBCDriverType driverType, PoolSettings poolSettings) {
+        PoolSettings settings = Objects.nonNull(poolSettings) ? poolSettings : new PoolSettings();
         String protocol = driverType.getProtocol();
         String urlFormatter = driverType.getUrlFormatter();
         String url = urlFormatter.formatted(protocol, host, port);
@@ -103,18 +181,19 @@ public class DataSourceHolder implements AutoCloseable {
         hikariConfig.setJdbcUrl(url);
         hikariConfig.setUsername(username);
         hikariConfig.setPassword(password);
-        Properties dataSourceProperties = new Properties();
-        if (MapUtils.isNotEmpty(properties)) {
-            dataSourceProperties.putAll(properties);
-            hikariConfig.setDataSourceProperties(dataSourceProperties);
-        }
+        hikariConfig.setDataSourceProperties(dataSourceProperties(driverType, properties));
         hikariConfig.setAutoCommit(true);
         hikariConfig.setAllowPoolSuspension(true);
-        hikariConfig.setConnectionTimeout(Duration.ofSeconds(4).toMillis());
-        hikariConfig.setMaximumPoolSize(16);
-        hikariConfig.setMinimumIdle(2);
-        hikariConfig.setIdleTimeout(Duration.ofSeconds(30).toMillis());
-        hikariConfig.setMaxLifetime(Duration.ofSeconds(50).toMillis());
+        hikariConfig.setConnectionTimeout(settings.connectionTimeoutOrDefault());
+        hikariConfig.setMaximumPoolSize(settings.maximumPoolSizeOrDefault());
+        hikariConfig.setMinimumIdle(settings.minimumIdleOrDefault());
+        hikariConfig.setIdleTimeout(settings.idleTimeoutOrDefault());
+        hikariConfig.setMaxLifetime(settings.maxLifetimeOrDefault());
+        AdaptivePoolSizer sizer = null;
+        if (settings.isAdaptive()) {
+            sizer = new AdaptivePoolSizer(settings.adaptiveMinimumPoolSizeOrDefault(), settings.adaptiveMaximumPoolSizeOrDefault());
+            sizer.configure(hikariConfig);
+        }
         try {
             Class.forName("com.p6spy.engine.spy.P6SpyDriver");
             hikariConfig.setDriverClassName("com.p6spy.engine.spy.P6SpyDriver");
@@ -126,13 +205,85 @@ public class DataSourceHolder implements AutoCloseable {
             hikariConfig.setConnectionTestQuery(driverType.getValidationQuery());
         }
         HikariDataSource hikariDataSource = new HikariDataSource(hikariConfig);
+        if (Objects.nonNull(sizer)) {
+            sizer.start(hikariDataSource);
+        }
         configDataSource(hikariDataSource, driverType);
         return hikariDataSource;
     }
 
+    /**
+     * Pool every replica with the settings of the primary, replicas without credentials or properties use those of
+     * the primary.
+     *
+     * @return null if there is no replica
+     */
+    private static ReplicaRouter createReplicaRouter(DataSourceInfo dto) {
+        List<ReplicaInfo> replicas = dto.getReplicas();
+        if (Objects.isNull(replicas) || replicas.isEmpty()) {
+            return null;
+        }
+        List<HikariDataSource> dataSources = new ArrayList<>(replicas.size());
+        try {
+            for (ReplicaInfo replica : replicas) {
+                Validate.notNull(replica.getHost(), "host of replica is required.");
+                dataSources.add(createDataSource(
+                    replica.getHost(),
+                    Objects.nonNull(replica.getPort()) ? replica.getPort() : dto.getPort(),
+                    Objects.nonNull(replica.getUsername()) ? replica.getUsername() : dto.getUsername(),
+                    Objects.nonNull(replica.getPassword()) ? replica.getPassword() : dto.getPassword(),
+                    Objects.nonNull(replica.getProperties()) ? replica.getProperties() : dto.getProperties(),
+                    dto.getDriverType(), dto.getPool()));
+            }
+            long readYourWritesMillis = Objects.nonNull(dto.getReadYourWritesMillis()) ? dto.getReadYourWritesMillis() : ReplicaRouter.DEFAULT_READ_YOUR_WRITES_MILLIS;
+            return new ReplicaRouter(dataSources, dto.getReplicaBalancing(), readYourWritesMillis);
+        } catch (RuntimeException e) {
+            dataSources.forEach(HikariDataSource::close);
+            throw e;
+        }
+    }
+
     private static void configDataSource(HikariDataSource hikari, JDBCDriverType driverType) {
     }
 
+    /**
+     * Driver properties of the pool, the given ones take precedence over {@link #statementCacheProperties}.
+     */
+    static Properties dataSourceProperties(JDBCDriverType driverType, Map<String, Object> properties) {
+        Properties dataSourceProperties = new Properties();
+        dataSourceProperties.putAll(statementCacheProperties(driverType));
+        if (MapUtils.isNotEmpty(properties)) {
+            dataSourceProperties.putAll(properties);
+        }
+        return dataSourceProperties;
+    }
+
+    /**
+     * Prepared statements are cached by the driver per physical connection, so they outlive a checkout from the pool.
+     * A cache in the executor would be keyed by the connection proxy of a single checkout, or would have to prepare on
+     * the unwrapped connection, out of sight of the pool's statement and commit-state tracking.
+     */
+    private static Map<String, Object> statementCacheProperties(JDBCDriverType driverType) {
+        return switch (driverType) {
+            case MYSQL -> Map.of(
+                "cachePrepStmts", "true",
+                "prepStmtCacheSize", "256",
+                "prepStmtCacheSqlLimit", "2048",
+                "useServerPrepStmts", "true"
+            );
+            case PG -> Map.of(
+                "prepareThreshold", "5",
+                "preparedStatementCacheQueries", "256"
+            );
+            case SQL_SERVER -> Map.of(
+                "disableStatementPooling", "false",
+                "statementPoolingCacheSize", "256"
+            );
+            case ORACLE -> Map.of("oracle.jdbc.implicitStatementCacheSize", "256");
+            default -> Map.of();
+        };
+    }
+
     public JsonQLCompiler getCompiler(TableMetaCache tableMetaCache) {
         if (Objects.isNull(compiler)) {
             compiler = new JsonQLCompiler(em, tableMetaCache, integrator);
@@ -140,10 +291,55 @@ public class DataSourceHolder implements AutoCloseable {
         return compiler;
     }
 
+    /**
+     * Selects of the returned executor are routed to the read replicas, if any.
+     */
+    public JsonQLExecutor getExecutor(TableMetaCache tableMetaCache) {
+        return getExecutor(tableMetaCache, null);
+    }
+
+    /**
+     * @param session selects of the session stay on the primary for a while after its writes, the returned executor
+     *                if null, see {@link ReplicaRouter#written(Object)}
+     */
+    public JsonQLExecutor getExecutor(TableMetaCache tableMetaCache, Object session) {
+        return new JsonQLExecutor(getCompiler(tableMetaCache), replicaRouter, session);
+    }
+
+    /**
+     * Requests of the returned executor share one limiter per data source, at most as many run as the pool has
+     * connections. The limiter follows the pool when it is resized by an {@link AdaptivePoolSizer}.
+     */
+    public synchronized AsyncJsonQLExecutor getAsyncExecutor(TableMetaCache tableMetaCache) {
+        Validate.validState(Objects.nonNull(dataSource), "Asynchronous execution requires a pooled data source.");
+        if (Objects.isNull(limiter)) {
+            AsyncLimiter created = new AsyncLimiter(dataSource.getMaximumPoolSize(), asyncExecutor);
+            if (dataSource.getMetricsTrackerFactory() instanceof AdaptivePoolSizer sizer) {
+                sizer.onResize(created::setLimit);
+                // it may have been resized in between
+                created.setLimit(dataSource.getMaximumPoolSize());
+            }
+            limiter = created;
+        }
+        return new AsyncJsonQLExecutor(getCompiler(tableMetaCache), dataSource, limiter);
+    }
+
+    /**
+     * Executor of the limiters created afterward, e.g. {@code Executors.newVirtualThreadPerTaskExecutor()} on Java 21.
+     */
+    public static void useAsyncExecutor(Executor executor) {
+        asyncExecutor = Objects.requireNonNull(executor);
+    }
+
     @Override
     public void close() throws Exception {
+        EntityManagerFactory entityManagerFactory = em.getEntityManagerFactory();
         em.close();
+        entityManagerFactory.close();
         dataSource.close();
+        if (Objects.nonNull(replicaRouter)) {
+            replicaRouter.close();
+        }
     }
 
 }
@@ -1,12 +1,18 @@
 package io.github.honhimw.jsonql.hibernate6;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import io.github.honhimw.jsonql.common.JsonUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.sql.Types;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author hon_him
@@ -17,24 +23,157 @@ public class JDBCUtils {
 
     public static List<Map<String, Object>> extractResult(ResultSet resultSet) throws SQLException {
         List<Map<String, Object>> resultList = new ArrayList<>();
+        String[] columnNames = columnLabels(resultSet.getMetaData());
+
+        while (resultSet.next()) {
+            resultList.add(extractRow(resultSet, columnNames));
+        }
+
+        return resultList;
+    }
+
+    /**
+     * Lazily read rows from the {@link ResultSet}, only the current row is held in memory.
+     * The {@link ResultSet} is not closed by the stream, register it with {@link Stream#onClose(Runnable)}.
+     */
+    public static Stream<Map<String, Object>> streamResult(ResultSet resultSet) throws SQLException {
+        String[] columnNames = columnLabels(resultSet.getMetaData());
+        Iterator<Map<String, Object>> iterator = new Iterator<>() {
+
+            private Boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (Objects.isNull(hasNext)) {
+                    try {
+                        hasNext = resultSet.next();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return hasNext;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                hasNext = null;
+                try {
+                    return extractRow(resultSet, columnNames);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Write rows as a JSON array of objects, typed columns are written without boxing. Output matches the
+     * serialization of {@link #extractResult(ResultSet)} by the codec of the generator, {@link JsonUtils#getObjectMapper()}
+     * by default: BIGINT as string, see {@link #columnType} for the columns written by {@link JsonGenerator#writeObject(Object)}.
+     *
+     * @return number of rows written
+     */
+    public static long writeResult(ResultSet resultSet, JsonGenerator generator) throws SQLException, IOException {
         ResultSetMetaData metaData = resultSet.getMetaData();
         int columnCount = metaData.getColumnCount();
-        String[] columnNames = new String[columnCount + 1];
+        SerializedString[] columnNames = new SerializedString[columnCount + 1];
+        int[] columnTypes = new int[columnCount + 1];
         for (int i = 1; i <= columnCount; i++) {
-            columnNames[i] = metaData.getColumnLabel(i);
+            columnNames[i] = new SerializedString(metaData.getColumnLabel(i));
+            columnTypes[i] = columnType(metaData, i);
         }
 
+        long rows = 0;
+        generator.writeStartArray();
         while (resultSet.next()) {
-            Map<String, Object> rowMap = new LinkedHashMap<>();
+            generator.writeStartObject();
             for (int i = 1; i <= columnCount; i++) {
-                Object columnValue = resultSet.getObject(i);
-                rowMap.put(columnNames[i], columnValue);
+                generator.writeFieldName(columnNames[i]);
+                writeColumn(resultSet, i, columnTypes[i], generator);
             }
+            generator.writeEndObject();
+            rows++;
+        }
+        generator.writeEndArray();
+        return rows;
+    }
 
-            resultList.add(rowMap);
+    private static void writeColumn(ResultSet resultSet, int i, int columnType, JsonGenerator generator) throws SQLException, IOException {
+        switch (columnType) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER -> {
+                int value = resultSet.getInt(i);
+                if (resultSet.wasNull()) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(value);
+                }
+            }
+            case Types.BIGINT -> {
+                long value = resultSet.getLong(i);
+                if (resultSet.wasNull()) {
+                    generator.writeNull();
+                } else {
+                    generator.writeString(Long.toString(value));
+                }
+            }
+            case Types.DECIMAL, Types.NUMERIC -> {
+                BigDecimal value = resultSet.getBigDecimal(i);
+                if (Objects.isNull(value)) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(value);
+                }
+            }
+            case Types.BOOLEAN -> {
+                boolean value = resultSet.getBoolean(i);
+                if (resultSet.wasNull()) {
+                    generator.writeNull();
+                } else {
+                    generator.writeBoolean(value);
+                }
+            }
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR ->
+                generator.writeString(resultSet.getString(i));
+            default -> generator.writeObject(resultSet.getObject(i));
         }
+    }
 
-        return resultList;
+    /**
+     * Column type written by its typed getter, {@link Types#OTHER} for the columns written as
+     * {@link ResultSet#getObject(int)}: the Java type of unsigned integers, floats and date/time depends on the driver,
+     * e.g. a FLOAT may be read as a Float or a Double, a TIMESTAMP as a {@link java.sql.Timestamp} or a
+     * {@link java.time.LocalDateTime} with sub-millisecond precision.
+     */
+    private static int columnType(ResultSetMetaData metaData, int column) throws SQLException {
+        int columnType = metaData.getColumnType(column);
+        return switch (columnType) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> metaData.isSigned(column) ? columnType : Types.OTHER;
+            case Types.DECIMAL, Types.NUMERIC, Types.BOOLEAN,
+                 Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR -> columnType;
+            default -> Types.OTHER;
+        };
+    }
+
+    private static String[] columnLabels(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] columnNames = new String[columnCount + 1];
+        for (int i = 1; i <= columnCount; i++) {
+            columnNames[i] = metaData.getColumnLabel(i);
+        }
+        return columnNames;
+    }
+
+    private static Map<String, Object> extractRow(ResultSet resultSet, String[] columnNames) throws SQLException {
+        Map<String, Object> rowMap = new LinkedHashMap<>();
+        for (int i = 1; i < columnNames.length; i++) {
+            Object columnValue = resultSet.getObject(i);
+            rowMap.put(columnNames[i], columnValue);
+        }
+        return rowMap;
     }
 
 }
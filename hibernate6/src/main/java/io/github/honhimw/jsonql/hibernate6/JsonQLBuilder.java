@@ -65,7 +65,7 @@ public class JsonQLBuilder {
         }
 
         public Select selection(Consumer<SelectionClause> selectionBuilder) {
-            ArrayNode arrayNode = node.withArray(Nodes.SELECTIONS.path());
+            ArrayNode arrayNode = node.withArray(Nodes.SELECTIONS.pointer());
             SelectionClause selectionClause = new SelectionClause(arrayNode);
             selectionBuilder.accept(selectionClause);
             return this;
@@ -77,14 +77,14 @@ public class JsonQLBuilder {
         }
 
         public Select join(Consumer<JoinClause> joinBuilder) {
-            ArrayNode joinArrayNode = node.withArray(Nodes.JOIN.path());
+            ArrayNode joinArrayNode = node.withArray(Nodes.JOIN.pointer());
             JoinClause joinClause = new JoinClause(joinArrayNode);
             joinBuilder.accept(joinClause);
             return this;
         }
 
         public Select where(Consumer<WhereClause> whereBuilder) {
-            ObjectNode where = node.withObject(Nodes.CONDITION.path());
+            ObjectNode where = node.withObject(Nodes.CONDITION.pointer());
             WhereClause whereClause = new WhereClause(where);
             whereBuilder.accept(whereClause);
             return this;
@@ -92,7 +92,7 @@ public class JsonQLBuilder {
 
         public Select groupBy(Collection<String> columns) {
             if (CollectionUtils.isNotEmpty(columns)) {
-                ArrayNode groupBy = node.withArray(Nodes.GROUP_BY.path());
+                ArrayNode groupBy = node.withArray(Nodes.GROUP_BY.pointer());
                 for (String column : columns) {
                     groupBy.add(column);
                 }
@@ -102,7 +102,7 @@ public class JsonQLBuilder {
 
         public Select groupBy(String... columns) {
             if (ArrayUtils.isNotEmpty(columns)) {
-                ArrayNode groupBy = node.withArray(Nodes.GROUP_BY.path());
+                ArrayNode groupBy = node.withArray(Nodes.GROUP_BY.pointer());
                 for (String column : columns) {
                     groupBy.add(column);
                 }
@@ -212,7 +212,7 @@ public class JsonQLBuilder {
 
                 public JoinMeta groupBy(Collection<String> columns) {
                     if (CollectionUtils.isNotEmpty(columns)) {
-                        ArrayNode groupBy = meta.withArray(Nodes.GROUP_BY.path());
+                        ArrayNode groupBy = meta.withArray(Nodes.GROUP_BY.pointer());
                         for (String column : columns) {
                             groupBy.add(column);
                         }
@@ -222,7 +222,7 @@ public class JsonQLBuilder {
 
                 public JoinMeta groupBy(String... columns) {
                     if (ArrayUtils.isNotEmpty(columns)) {
-                        ArrayNode groupBy = meta.withArray(Nodes.GROUP_BY.path());
+                        ArrayNode groupBy = meta.withArray(Nodes.GROUP_BY.pointer());
                         for (String column : columns) {
                             groupBy.add(column);
                         }
@@ -309,7 +309,7 @@ public class JsonQLBuilder {
                     return this;
                 }
                 ObjectNode with = objectNode(field);
-                ArrayNode arrayNode = with.withArray(Nodes.INNER.path());
+                ArrayNode arrayNode = with.withArray(Nodes.INNER.pointer());
                 for (Object value : values) {
                     arrayNode.addPOJO(value);
                 }
@@ -343,9 +343,9 @@ public class JsonQLBuilder {
                 ArrayNode and;
                 if (where instanceof ArrayNode arrayNode) {
                     ObjectNode objectNode = arrayNode.addObject();
-                    and = objectNode.withArray(Nodes.AND.path());
+                    and = objectNode.withArray(Nodes.AND.pointer());
                 } else {
-                    and = where.withArray(Nodes.AND.path());
+                    and = where.withArray(Nodes.AND.pointer());
                 }
                 WhereClause subWhereClause = new WhereClause(this, and);
                 sub.accept(subWhereClause);
@@ -360,9 +360,9 @@ public class JsonQLBuilder {
                 ArrayNode or;
                 if (where instanceof ArrayNode arrayNode) {
                     ObjectNode objectNode = arrayNode.addObject();
-                    or = objectNode.withArray(Nodes.OR.path());
+                    or = objectNode.withArray(Nodes.OR.pointer());
                 } else {
-                    or = where.withArray(Nodes.OR.path());
+                    or = where.withArray(Nodes.OR.pointer());
                 }
                 WhereClause subWhereClause = new WhereClause(this, or);
                 sub.accept(subWhereClause);
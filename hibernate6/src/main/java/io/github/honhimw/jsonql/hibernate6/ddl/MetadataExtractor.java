@@ -8,6 +8,7 @@ import org.hibernate.boot.Metadata;
 import org.hibernate.boot.model.naming.Identifier;
 import org.hibernate.boot.model.relational.SqlStringGenerationContext;
 import org.hibernate.boot.model.relational.internal.SqlStringGenerationContextImpl;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
 import org.hibernate.engine.jdbc.env.spi.JdbcEnvironment;
 import org.hibernate.mapping.Table;
 import org.hibernate.resource.transaction.spi.DdlTransactionIsolator;
@@ -21,11 +22,13 @@ import org.hibernate.tool.schema.internal.Helper;
 import org.hibernate.tool.schema.internal.HibernateSchemaManagementTool;
 import org.hibernate.tool.schema.internal.exec.JdbcContext;
 
+import javax.sql.DataSource;
 import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
 
 /**
  * @author hon_him
@@ -36,13 +39,33 @@ public class MetadataExtractor {
 
     private final MetadataExtractorIntegrator integrator;
 
+    private final DataSource dataSource;
+
     private DatabaseInformation databaseInformation;
 
     public MetadataExtractor(MetadataExtractorIntegrator integrator) {
+        this(integrator, null);
+    }
+
+    /**
+     * @param dataSource connections of {@link #getTableMetas}, instead of the ones of the integrator's session factory.
+     *                   Required for an integrator of a shared bootstrap, whose session factory connects to any tenant.
+     */
+    public MetadataExtractor(MetadataExtractorIntegrator integrator, DataSource dataSource) {
+        if (integrator.isShared() && Objects.isNull(dataSource)) {
+            throw new IllegalArgumentException("extractor of a shared bootstrap requires the data source of its tenant: %s".formatted(integrator.getDataSourceId()));
+        }
         this.integrator = integrator;
+        this.dataSource = dataSource;
     }
 
-    public DatabaseInformation getDatabaseInformation() {
+    /**
+     * Hibernate schema tooling, not available for a shared bootstrap, see {@link #getTableMeta}.
+     */
+    public synchronized DatabaseInformation getDatabaseInformation() {
+        if (integrator.isShared()) {
+            throw new IllegalStateException("schema tooling of a shared bootstrap connects to any of its tenants, read the metadata of [%s] by getTableMetas.".formatted(integrator.getDataSourceId()));
+        }
         if (this.databaseInformation == null) {
             HibernateSchemaManagementTool tool = new HibernateSchemaManagementTool();
             ServiceRegistryImplementor serviceRegistry = integrator.getSessionFactory().getServiceRegistry();
@@ -71,8 +94,19 @@ public class MetadataExtractor {
         return getDatabaseInformation().getTableInformation(null, null, Identifier.toIdentifier(tableName));
     }
 
+    /**
+     * Read over the data source of the tenant for a shared bootstrap, see {@link #getTableMetas}.
+     *
+     * @return null if the table is not found
+     */
     public List<ColumnMetaData> getTableMeta(String tableName) {
+        if (integrator.isShared()) {
+            return getTableMetas(List.of(tableName)).get(tableName);
+        }
         TableInformation tableInformation = getTableInformation(tableName);
+        if (Objects.isNull(tableInformation)) {
+            return null;
+        }
         Field columnsField = null;
         try {
             columnsField = TableInformationImpl.class.getDeclaredField("columns");
@@ -107,9 +141,88 @@ public class MetadataExtractor {
         return fields;
     }
 
+    /**
+     * Column metadata of many tables at once, one {@link DatabaseMetaData#getColumns} over the current schema instead
+     * of a full table lookup per table. Primary keys can only be read per table.
+     *
+     * @return metadata by the given table names, tables not found are absent
+     */
+    public Map<String, List<ColumnMetaData>> getTableMetas(Collection<String> tableNames) {
+        Map<String, String> requested = new HashMap<>();
+        for (String tableName : tableNames) {
+            requested.put(tableName.toLowerCase(Locale.ROOT), tableName);
+        }
+        Connection connection = null;
+        try {
+            connection = Objects.nonNull(dataSource) ? dataSource.getConnection() : connectionProvider().getConnection();
+            DatabaseMetaData metaData = connection.getMetaData();
+            String catalog = connection.getCatalog();
+            String schema = connection.getSchema();
+            // actual table name -> (requested table name, column rows)
+            Map<String, Map.Entry<String, List<ColumnInformationRow>>> found = new LinkedHashMap<>();
+            try (ResultSet resultSet = metaData.getColumns(catalog, schema, "%", "%")) {
+                while (resultSet.next()) {
+                    String actualName = resultSet.getString("TABLE_NAME");
+                    String tableName = requested.get(actualName.toLowerCase(Locale.ROOT));
+                    if (Objects.isNull(tableName)) {
+                        continue;
+                    }
+                    found.computeIfAbsent(actualName, key -> Map.entry(tableName, new ArrayList<>()))
+                        .getValue().add(new ColumnInformationRow(
+                            resultSet.getString("COLUMN_NAME"),
+                            resultSet.getInt("DATA_TYPE"),
+                            resultSet.getInt("COLUMN_SIZE"),
+                            resultSet.getInt("NULLABLE") == DatabaseMetaData.columnNullable
+                        ));
+                }
+            }
+            Map<String, List<ColumnMetaData>> tableMetas = new LinkedHashMap<>();
+            for (Map.Entry<String, Map.Entry<String, List<ColumnInformationRow>>> entry : found.entrySet()) {
+                Set<String> pkColumns = new HashSet<>();
+                try (ResultSet resultSet = metaData.getPrimaryKeys(catalog, schema, entry.getKey())) {
+                    while (resultSet.next()) {
+                        pkColumns.add(resultSet.getString("COLUMN_NAME"));
+                    }
+                }
+                List<ColumnMetaData> fields = new ArrayList<>();
+                for (ColumnInformationRow row : entry.getValue().getValue()) {
+                    fields.add(new ColumnMetaData(
+                        Identifier.toIdentifier(row.name()).getCanonicalName(),
+                        pkColumns.contains(row.name()),
+                        TypeConvertUtils.jdbc2SimpleType(row.typeCode()),
+                        row.size(),
+                        row.nullable()
+                    ));
+                }
+                tableMetas.put(entry.getValue().getKey(), fields);
+            }
+            return tableMetas;
+        } catch (SQLException e) {
+            throw new IllegalStateException("read table metadata failed.", e);
+        } finally {
+            if (Objects.nonNull(connection)) {
+                try {
+                    if (Objects.nonNull(dataSource)) {
+                        connection.close();
+                    } else {
+                        connectionProvider().closeConnection(connection);
+                    }
+                } catch (SQLException ignored) {
+                }
+            }
+        }
+    }
+
+    private ConnectionProvider connectionProvider() {
+        return integrator.getSessionFactory().getServiceRegistry().getService(ConnectionProvider.class);
+    }
+
     public Table getTable(String tableName) {
-        List<ColumnMetaData> tableMeta = getTableMeta(tableName);
-        TableBuilder builder = TableBuilder.builder(tableName);
+        return getTable(tableName, getTableMeta(tableName));
+    }
+
+    public Table getTable(String tableName, List<ColumnMetaData> tableMeta) {
+        TableBuilder builder = TableBuilder.builder(tableName, integrator);
         for (ColumnMetaData columnMetaData : tableMeta) {
             builder.addColumn(columnBuilder -> columnBuilder
                 .name(columnMetaData.name)
@@ -121,8 +234,16 @@ public class MetadataExtractor {
         return builder.build();
     }
 
+    public MetadataExtractorIntegrator getIntegrator() {
+        return integrator;
+    }
+
     public record ColumnMetaData(String name, boolean primaryKey, String type, int length, boolean nullable) {
 
     }
 
+    private record ColumnInformationRow(String name, int typeCode, int size, boolean nullable) {
+
+    }
+
 }
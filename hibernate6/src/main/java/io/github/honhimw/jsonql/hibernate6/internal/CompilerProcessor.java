@@ -4,7 +4,10 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
+import io.github.honhimw.jsonql.common.JsonQLMetrics;
 import io.github.honhimw.jsonql.common.JsonUtils;
+import io.github.honhimw.jsonql.common.KeysetCursor;
+import io.github.honhimw.jsonql.common.Metrics;
 import io.github.honhimw.jsonql.common.Nodes;
 import io.github.honhimw.jsonql.common.visitor.*;
 import io.github.honhimw.jsonql.hibernate6.CompileUtils;
@@ -13,6 +16,7 @@ import io.github.honhimw.jsonql.hibernate6.SQLHolder;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * @author hon_him
@@ -34,17 +38,19 @@ class CompilerProcessor {
     }
 
     List<SQLHolder> process() {
+        long start = Metrics.start();
         crudVisitor.visitStart();
-        TextNode operationNode = rootNode.at(Nodes.OPERATION.path()).require();
+        TextNode operationNode = rootNode.at(Nodes.OPERATION.pointer()).require();
         crudVisitor.visitOperation(operationNode);
         String operation = operationNode.asText();
         if (StringUtils.equalsIgnoreCase(operation, SelectVisitor.OPERATOR)) {
             SelectVisitor selectVisitor = crudVisitor.visitSelect();
             compileSelect(rootNode, selectVisitor);
             crudVisitor.visitEnd();
+            Metrics.phase(JsonQLMetrics.Phase.VISIT, start);
             DMLUtils.SelectBuilder selectBuilder = ctx.getSelectBuilder();
             SQLHolder sqlHolder = selectBuilder.jdbcQL();
-            boolean count = rootNode.at(Nodes.COUNT.path()).asBoolean(false);
+            boolean count = rootNode.at(Nodes.COUNT.pointer()).asBoolean(false);
             if (count) {
                 SQLHolder countSqlHolder = selectBuilder.countJdbcQL();
                 return List.of(new SQLHolder(sqlHolder.sql(), sqlHolder.parameters()), new SQLHolder(countSqlHolder.sql(), countSqlHolder.parameters()));
@@ -55,6 +61,7 @@ class CompilerProcessor {
             InsertVisitor insertVisitor = crudVisitor.visitInsert();
             compileInsert(rootNode, insertVisitor);
             crudVisitor.visitEnd();
+            Metrics.phase(JsonQLMetrics.Phase.VISIT, start);
             DMLUtils.InsertBuilder insertBuilder = ctx.getInsertBuilder();
             SQLHolder sqlHolder = insertBuilder.jdbcQL();
             return List.of(new SQLHolder(sqlHolder.sql(), sqlHolder.parameters()));
@@ -62,6 +69,7 @@ class CompilerProcessor {
             UpdateVisitor updateVisitor = crudVisitor.visitUpdate();
             compileUpdate(rootNode, updateVisitor);
             crudVisitor.visitEnd();
+            Metrics.phase(JsonQLMetrics.Phase.VISIT, start);
             DMLUtils.UpdateBuilder updateBuilder = ctx.getUpdateBuilder();
             SQLHolder sqlHolder = updateBuilder.jdbcQL();
             return List.of(new SQLHolder(sqlHolder.sql(), sqlHolder.parameters()));
@@ -69,6 +77,7 @@ class CompilerProcessor {
             DeleteVisitor deleteVisitor = crudVisitor.visitDelete();
             compileDelete(rootNode, deleteVisitor);
             crudVisitor.visitEnd();
+            Metrics.phase(JsonQLMetrics.Phase.VISIT, start);
             DMLUtils.DeleteBuilder deleteBuilder = ctx.getDeleteBuilder();
             SQLHolder sqlHolder = deleteBuilder.jdbcQL();
             return List.of(new SQLHolder(sqlHolder.sql(), sqlHolder.parameters()));
@@ -76,10 +85,11 @@ class CompilerProcessor {
             UpdateVisitor updateVisitor = crudVisitor.visitUpdate();
             ObjectNode _rootNode = rootNode.require();
             _rootNode.remove(Nodes.DATA.key());
-            ObjectNode data = rootNode.withObject(Nodes.DATA.path());
+            ObjectNode data = rootNode.withObject(Nodes.DATA.pointer());
             data.putPOJO(CompileUtils.LOGIC_DELETE_FIELD, ctx.now());
             compileUpdate(rootNode, updateVisitor);
             crudVisitor.visitEnd();
+            Metrics.phase(JsonQLMetrics.Phase.VISIT, start);
             DMLUtils.UpdateBuilder updateBuilder = ctx.getUpdateBuilder();
             SQLHolder sqlHolder = updateBuilder.jdbcQL();
             return List.of(new SQLHolder(sqlHolder.sql(), sqlHolder.parameters()));
@@ -90,17 +100,17 @@ class CompilerProcessor {
 
     private void compileInsert(JsonNode rootNode, InsertVisitor insertVisitor) {
         if (ctx.isEmbeddedDB()) {
-            ObjectNode dataNode = rootNode.withObject(Nodes.DATA.path());
+            ObjectNode dataNode = rootNode.withObject(Nodes.DATA.pointer());
 //            dataNode.remove("created_at");
 //            dataNode.putPOJO("created_at", ctx.now());
         }
         insertVisitor.visitStart();
-        insertVisitor.visitRoot(rootNode.at(Nodes.TABLE.path()).require());
-        JsonNode aliasNode = rootNode.at(Nodes.ALIAS.path());
+        insertVisitor.visitRoot(rootNode.at(Nodes.TABLE.pointer()).require());
+        JsonNode aliasNode = rootNode.at(Nodes.ALIAS.pointer());
         if (aliasNode.isTextual()) {
             insertVisitor.visitRootAlias(aliasNode.require());
         }
-        ObjectNode data = rootNode.at(Nodes.DATA.path()).require();
+        ObjectNode data = rootNode.at(Nodes.DATA.pointer()).require();
         ValuesVisitor valuesVisitor = insertVisitor.visitValues(data);
         valuesVisitor.visitStart();
         data.fields().forEachRemaining(entry -> valuesVisitor.visitNext(entry.getKey(), entry.getValue()));
@@ -110,8 +120,8 @@ class CompilerProcessor {
 
     private void compileDelete(JsonNode rootNode, DeleteVisitor deleteVisitor) {
         deleteVisitor.visitStart();
-        deleteVisitor.visitRoot(rootNode.at(Nodes.TABLE.path()).require());
-        JsonNode aliasNode = rootNode.at(Nodes.ALIAS.path());
+        deleteVisitor.visitRoot(rootNode.at(Nodes.TABLE.pointer()).require());
+        JsonNode aliasNode = rootNode.at(Nodes.ALIAS.pointer());
         if (aliasNode.isTextual()) {
             deleteVisitor.visitRootAlias(aliasNode.require());
         }
@@ -125,19 +135,19 @@ class CompilerProcessor {
 
     private void compileUpdate(JsonNode rootNode, UpdateVisitor updateVisitor) {
         if (ctx.isEmbeddedDB()) {
-            ObjectNode dataNode = rootNode.withObject(Nodes.DATA.path());
+            ObjectNode dataNode = rootNode.withObject(Nodes.DATA.pointer());
 //            dataNode.remove("updated_at");
 //            dataNode.putPOJO("updated_at", ctx.now());
         }
         updateVisitor.visitStart();
         updateVisitor.visitSyntax(rootNode);
-        updateVisitor.visitRoot(rootNode.at(Nodes.TABLE.path()).require());
-        JsonNode aliasNode = rootNode.at(Nodes.ALIAS.path());
+        updateVisitor.visitRoot(rootNode.at(Nodes.TABLE.pointer()).require());
+        JsonNode aliasNode = rootNode.at(Nodes.ALIAS.pointer());
         if (aliasNode.isTextual()) {
             updateVisitor.visitRootAlias(aliasNode.require());
         }
         ObjectNode conditionNode = getConditionNode(rootNode);
-        ObjectNode dataNode = rootNode.at(Nodes.DATA.path()).require();
+        ObjectNode dataNode = rootNode.at(Nodes.DATA.pointer()).require();
         dataNode.fields().forEachRemaining(entry -> {
             String key = entry.getKey();
             JsonNode value = entry.getValue();
@@ -153,30 +163,35 @@ class CompilerProcessor {
 
     private void compileSelect(JsonNode rootNode, SelectVisitor selectVisitor) {
         selectVisitor.visitStart();
-        selectVisitor.visitRoot(rootNode.at(Nodes.TABLE.path()).require());
-        JsonNode aliasNode = rootNode.at(Nodes.ALIAS.path());
+        selectVisitor.visitRoot(rootNode.at(Nodes.TABLE.pointer()).require());
+        JsonNode aliasNode = rootNode.at(Nodes.ALIAS.pointer());
         if (aliasNode.isTextual()) {
             selectVisitor.visitRootAlias(aliasNode.require());
         }
 
-        boolean distinct = rootNode.at(Nodes.DISTINCT.path()).asBoolean(false);
+        boolean distinct = rootNode.at(Nodes.DISTINCT.pointer()).asBoolean(false);
         selectVisitor.visitDistinct(distinct);
 
-        JsonNode selectionsNode = rootNode.at(Nodes.SELECTIONS.path());
+        JsonNode selectionsNode = rootNode.at(Nodes.SELECTIONS.pointer());
         selectVisitor.visitSelection(selectionsNode.isArray() ? selectionsNode.require() : null);
 
         ObjectNode conditionNode = getConditionNode(rootNode);
-        JsonNode pageNode = rootNode.at(Nodes.PAGE.path());
-        JsonNode pageSizeNode = rootNode.at(Nodes.PAGE_SIZE.path());
+        JsonNode pageNode = rootNode.at(Nodes.PAGE.pointer());
+        JsonNode pageSizeNode = rootNode.at(Nodes.PAGE_SIZE.pointer());
 
-        if (!JsonUtils.isMissingOrNull(pageNode) && !JsonUtils.isMissingOrNull(pageSizeNode)) {
+        ArrayNode afterNode = KeysetCursor.after(rootNode);
+        if (Objects.nonNull(afterNode)) {
+            JsonNode keysNode = rootNode.at(Nodes.ORDER_BY.pointer());
+            CompileUtils._assert(keysNode.isArray() && !keysNode.isEmpty(), "keyset pagination requires `orderBy`.");
+            selectVisitor.visitSeek(keysNode.require(), afterNode, pageSizeNode.asInt(20));
+        } else if (!JsonUtils.isMissingOrNull(pageNode) && !JsonUtils.isMissingOrNull(pageSizeNode)) {
             ObjectNode _rootNode = rootNode.require();
             _rootNode.put(Nodes.COUNT.key(), true);
             selectVisitor.visitPage(pageNode.asInt(1), pageSizeNode.asInt(20));
         }
 
 
-        JsonNode joinNode = rootNode.at(Nodes.JOIN.path());
+        JsonNode joinNode = rootNode.at(Nodes.JOIN.pointer());
         if (joinNode.isArray() && !joinNode.isEmpty()) {
             JoinVisitor joinVisitor = selectVisitor.visitJoin(joinNode);
             joinVisitor.visitStart();
@@ -186,18 +201,18 @@ class CompilerProcessor {
             joinVisitor.visitEnd();
         }
 
-        JsonNode groupByNode = rootNode.at(Nodes.GROUP_BY.path());
+        JsonNode groupByNode = rootNode.at(Nodes.GROUP_BY.pointer());
         if (groupByNode.isArray() && !groupByNode.isEmpty()) {
             selectVisitor.visitGroupBy(groupByNode.require());
         }
 
-        JsonNode orderByNode = rootNode.at(Nodes.ORDER_BY.path());
+        JsonNode orderByNode = rootNode.at(Nodes.ORDER_BY.pointer());
         if (orderByNode.isArray() && !orderByNode.isEmpty()) {
             selectVisitor.visitOrderBy(orderByNode.require());
         }
 
         boolean queryDeleted = false;
-        JsonNode queryDeletedNode = rootNode.at(Nodes.QUERY_DELETED.path());
+        JsonNode queryDeletedNode = rootNode.at(Nodes.QUERY_DELETED.pointer());
         if (queryDeletedNode.isBoolean()) {
             queryDeleted = queryDeletedNode.asBoolean();
         }
@@ -258,13 +273,13 @@ class CompilerProcessor {
     }
 
     private ObjectNode getConditionNode(JsonNode rootNode) {
-        JsonNode conditionNode = rootNode.at(Nodes.CONDITION.path());
+        JsonNode conditionNode = rootNode.at(Nodes.CONDITION.pointer());
         if (conditionNode.isObject()) {
             return conditionNode.require();
         } else if (conditionNode.isMissingNode()) {
-            return rootNode.withObject(Nodes.CONDITION.path());
+            return rootNode.withObject(Nodes.CONDITION.pointer());
         } else if (conditionNode.isNull()) {
-            return rootNode.withObject(Nodes.CONDITION.path(), JsonNode.OverwriteMode.NULLS, false);
+            return rootNode.withObject(Nodes.CONDITION.pointer(), JsonNode.OverwriteMode.NULLS, false);
         } else {
             throw new IllegalArgumentException("/condition argument must be an object.");
         }
@@ -29,16 +29,16 @@ class DeleteVisitorImpl extends DeleteVisitor {
 
     @Override
     public void visitSyntax(JsonNode rootNode) {
-        CompileUtils._assert(rootNode.at(Nodes.TABLE.path()).isTextual(), "[/table] must be a textual value.");
-        CompileUtils._assert(rootNode.at(Nodes.OPERATION.path()).isTextual(), "[/operation] must be a textual value.");
-        JsonNode alias = rootNode.at(Nodes.ALIAS.path());
+        CompileUtils._assert(rootNode.at(Nodes.TABLE.pointer()).isTextual(), "[/table] must be a textual value.");
+        CompileUtils._assert(rootNode.at(Nodes.OPERATION.pointer()).isTextual(), "[/operation] must be a textual value.");
+        JsonNode alias = rootNode.at(Nodes.ALIAS.pointer());
         if (!alias.isMissingNode()) {
             CompileUtils._assert(alias.isTextual(), "[alias] must be a textual value.");
         }
-        CompileUtils._assert(JsonUtils.isMissingOrNull(rootNode.at(Nodes.JOIN.path())), "[join] argument is not allowed in delete statement, please use a simple where clause for update such as `id`.");
-        CompileUtils._assert(JsonUtils.isMissingOrNull(rootNode.at(Nodes.SELECTIONS.path())), "[selections] argument is not allowed in delete statement.");
-        CompileUtils._assert(JsonUtils.isMissingOrNull(rootNode.at(Nodes.ORDER_BY.path())), "[orderBy] argument is not allowed in delete statement.");
-        CompileUtils._assert(JsonUtils.isMissingOrNull(rootNode.at(Nodes.GROUP_BY.path())), "[groupBy] argument is not allowed in delete statement.");
+        CompileUtils._assert(JsonUtils.isMissingOrNull(rootNode.at(Nodes.JOIN.pointer())), "[join] argument is not allowed in delete statement, please use a simple where clause for update such as `id`.");
+        CompileUtils._assert(JsonUtils.isMissingOrNull(rootNode.at(Nodes.SELECTIONS.pointer())), "[selections] argument is not allowed in delete statement.");
+        CompileUtils._assert(JsonUtils.isMissingOrNull(rootNode.at(Nodes.ORDER_BY.pointer())), "[orderBy] argument is not allowed in delete statement.");
+        CompileUtils._assert(JsonUtils.isMissingOrNull(rootNode.at(Nodes.GROUP_BY.pointer())), "[groupBy] argument is not allowed in delete statement.");
     }
 
     @Override
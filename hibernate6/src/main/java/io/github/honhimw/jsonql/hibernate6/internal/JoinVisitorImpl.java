@@ -37,12 +37,12 @@ class JoinVisitorImpl extends JoinVisitor {
 
     @Override
     public void visitNext(ObjectNode join) {
-        String handleTable = join.at(Nodes.HANDLE_TABLE.path()).asText();
-        String joinColumn = join.at(Nodes.JOIN_COLUMN.path()).asText();
-        String type = join.at(Nodes.TYPE.path()).asText(Nodes.INNER.key());
-        String joinTable = join.at(Nodes.TABLE.path()).asText();
-        String alias = join.at(Nodes.ALIAS.path()).asText();
-        String referencedColumn = join.at(Nodes.REFERENCED_COLUMN.path()).asText();
+        String handleTable = join.at(Nodes.HANDLE_TABLE.pointer()).asText();
+        String joinColumn = join.at(Nodes.JOIN_COLUMN.pointer()).asText();
+        String type = join.at(Nodes.TYPE.pointer()).asText(Nodes.INNER.key());
+        String joinTable = join.at(Nodes.TABLE.pointer()).asText();
+        String alias = join.at(Nodes.ALIAS.pointer()).asText();
+        String referencedColumn = join.at(Nodes.REFERENCED_COLUMN.pointer()).asText();
 
         final String finalHandleTable;
         if (StringUtils.isNotBlank(handleTable)) {
@@ -0,0 +1,227 @@
+package io.github.honhimw.jsonql.hibernate6.meta;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.github.honhimw.jsonql.common.AsyncLimiter;
+import io.github.honhimw.jsonql.hibernate6.ddl.MetadataExtractor;
+import io.github.honhimw.jsonql.hibernate6.ddl.MetadataExtractor.ColumnMetaData;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.mapping.Table;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Bounded {@link TableMetaCache} loading tables lazily from a {@link MetadataExtractor}. Concurrent misses of the
+ * same table share one load, entries idle for longer than the TTL are evicted, and entries older than the refresh
+ * interval are reloaded in the background while readers keep getting the current table. A reload yielding the
+ * same columns keeps the cached {@link Table} instance, so plans compiled against it stay valid.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+@Slf4j
+public class LoadingTableMetaCache implements TableMetaCache {
+
+    private final MetadataExtractor extractor;
+
+    private final Executor executor;
+
+    private final Consumer<String> onChange;
+
+    private final LoadingCache<String, Entry> tables;
+
+    private LoadingTableMetaCache(Builder builder) {
+        this.extractor = builder.extractor;
+        this.executor = builder.executor;
+        this.onChange = builder.onChange;
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().recordStats();
+        if (builder.maximumWeight > 0) {
+            cacheBuilder.maximumWeight(builder.maximumWeight)
+                .weigher((String name, Entry entry) -> Math.max(1, entry.meta().size()));
+        } else {
+            cacheBuilder.maximumSize(builder.maximumSize);
+        }
+        if (Objects.nonNull(builder.expireAfterAccess)) {
+            cacheBuilder.expireAfterAccess(builder.expireAfterAccess);
+        }
+        if (Objects.nonNull(builder.refreshAfterWrite)) {
+            cacheBuilder.refreshAfterWrite(builder.refreshAfterWrite);
+        }
+        this.tables = cacheBuilder.build(new CacheLoader<>() {
+            @Override
+            public Entry load(String tableName) {
+                return LoadingTableMetaCache.this.load(tableName);
+            }
+
+            @Override
+            public ListenableFuture<Entry> reload(String tableName, Entry oldValue) {
+                ListenableFutureTask<Entry> task = ListenableFutureTask.create(() -> {
+                    Entry entry = LoadingTableMetaCache.this.load(tableName);
+                    if (entry.meta().equals(oldValue.meta())) {
+                        return oldValue;
+                    }
+                    changed(tableName);
+                    return entry;
+                });
+                executor.execute(task);
+                return task;
+            }
+        });
+    }
+
+    public static Builder builder(MetadataExtractor extractor) {
+        return new Builder(extractor);
+    }
+
+    /**
+     * @return null if the table does not exist
+     */
+    @Override
+    public Table buildTable(String fullTableName) {
+        try {
+            return tables.getUnchecked(fullTableName).table();
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drop the table, e.g. after a DDL, the next lookup loads it again.
+     */
+    public void invalidate(String tableName) {
+        tables.invalidate(tableName);
+        changed(tableName);
+    }
+
+    public void invalidateAll() {
+        for (String tableName : List.copyOf(tables.asMap().keySet())) {
+            invalidate(tableName);
+        }
+    }
+
+    public long size() {
+        return tables.size();
+    }
+
+    public CacheStats stats() {
+        return tables.stats();
+    }
+
+    private Entry load(String tableName) {
+        // the extractor shares one DatabaseInformation, its metadata reads are not meant to run concurrently
+        synchronized (extractor) {
+            List<ColumnMetaData> meta = extractor.getTableMeta(tableName);
+            if (Objects.isNull(meta)) {
+                return new Entry(List.of(), null);
+            }
+            meta = List.copyOf(meta);
+            return new Entry(meta, extractor.getTable(tableName, meta));
+        }
+    }
+
+    private void changed(String tableName) {
+        if (Objects.isNull(onChange)) {
+            return;
+        }
+        try {
+            onChange.accept(tableName);
+        } catch (RuntimeException e) {
+            log.warn("table change listener failed: [{}]", tableName, e);
+        }
+    }
+
+    /**
+     * Guava caches can not hold null, a missing table is cached as an entry without table.
+     */
+    private record Entry(List<ColumnMetaData> meta, Table table) {
+    }
+
+    public static class Builder {
+
+        private final MetadataExtractor extractor;
+
+        private long maximumSize = 10_000;
+
+        private long maximumWeight = 0;
+
+        private Duration expireAfterAccess = Duration.ofHours(1);
+
+        private Duration refreshAfterWrite = Duration.ofMinutes(10);
+
+        private Executor executor = AsyncLimiter.DEFAULT_EXECUTOR;
+
+        private Consumer<String> onChange;
+
+        private Builder(MetadataExtractor extractor) {
+            this.extractor = Objects.requireNonNull(extractor);
+        }
+
+        /**
+         * Maximum count of cached tables, 10000 by default.
+         */
+        public Builder maximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Bound the cache by the total column count of its tables instead of the table count.
+         */
+        public Builder maximumWeight(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /**
+         * Evict tables not read for the given time, 1 hour by default, null to keep them.
+         */
+        public Builder expireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+            return this;
+        }
+
+        /**
+         * Reload tables in the background once they are older than the given time, 10 minutes by default, null to
+         * never reload.
+         */
+        public Builder refreshAfterWrite(Duration refreshAfterWrite) {
+            this.refreshAfterWrite = refreshAfterWrite;
+            return this;
+        }
+
+        /**
+         * Executor of the background reloads.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor);
+            return this;
+        }
+
+        /**
+         * Called with the table name whenever a cached table changed or was invalidated, e.g. {@code planCache::invalidate}.
+         */
+        public Builder onChange(Consumer<String> onChange) {
+            this.onChange = onChange;
+            return this;
+        }
+
+        public LoadingTableMetaCache build() {
+            return new LoadingTableMetaCache(this);
+        }
+
+    }
+
+}
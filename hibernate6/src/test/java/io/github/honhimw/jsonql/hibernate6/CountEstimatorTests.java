@@ -0,0 +1,122 @@
+package io.github.honhimw.jsonql.hibernate6;
+
+import io.github.honhimw.jsonql.common.CountEstimator;
+import io.github.honhimw.jsonql.hibernate6.internal.JsonQLCompiler;
+import lombok.SneakyThrows;
+import org.h2.engine.Mode;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class CountEstimatorTests extends DataSourceBase {
+
+    private static final int ROWS = 8;
+
+    @BeforeAll
+    @SneakyThrows
+    static void init() {
+        Mode.ModeEnum mode = Mode.ModeEnum.MSSQLServer;
+        String url = "jdbc:h2:mem:estimate;MODE\\=%s;DB_CLOSE_DELAY\\=-1;IGNORECASE\\=FALSE;DATABASE_TO_UPPER\\=FALSE".formatted(mode.name());
+        buildDatasource(
+            "org.h2.Driver",
+            url,
+            null, null
+        );
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table material (id varchar(64) primary key, supplier varchar(64), title varchar(255))");
+            statement.execute("create schema other");
+            statement.execute("create table other.material (id varchar(64) primary key)");
+            try (PreparedStatement material = connection.prepareStatement("insert into material (id, supplier, title) values (?, ?, ?)")) {
+                for (int i = 0; i < ROWS; i++) {
+                    material.setString(1, "m" + i);
+                    material.setString(2, "s" + i);
+                    material.setString(3, "material-" + i);
+                    material.executeUpdate();
+                }
+            }
+        }
+    }
+
+    @AfterAll
+    static void clean() {
+        destroyDatasource();
+    }
+
+    @Test
+    @SneakyThrows
+    @SuppressWarnings("unchecked")
+    void estimate() {
+        JsonQLCompiler compiler = new JsonQLCompiler(em, mockTableMetaCache);
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "material",
+              "page": 1,
+              "pageSize": 100,
+              "countMode": "estimate",
+              "estimateThreshold": 0
+            }
+            """;
+        SQLHolder count = compiler.compile(MAPPER.readTree(select)).get(1);
+        try (Connection connection = dataSource.getConnection()) {
+            Assertions.assertNotNull(CountEstimator.estimate(connection, count.sql(), count.parameters(), "material"));
+        }
+        Map<String, Object> result = (Map<String, Object>) new JsonQLExecutor(compiler).executeDml(select);
+        Assertions.assertEquals(Boolean.TRUE, result.get("approximate"));
+        Assertions.assertEquals(ROWS, ((List<?>) result.get("list")).size());
+    }
+
+    /**
+     * The statistics are of a single table, counts of anything else are not estimated.
+     */
+    @Test
+    @SneakyThrows
+    void notEstimated() {
+        try (Connection connection = dataSource.getConnection()) {
+            Assertions.assertNull(CountEstimator.estimate(connection, "select count(*) from material m1_0 where m1_0.title = ?", List.of("material-0"), "material"));
+            Assertions.assertNull(CountEstimator.estimate(connection, "select count(*) from material m1_0 join material m2_0 on m2_0.id = m1_0.supplier", List.of(), "material"));
+            Assertions.assertNull(CountEstimator.estimate(connection, "select count(*) from material m1_0, material m2_0", List.of(), "material"));
+            Assertions.assertNull(CountEstimator.estimate(connection, "select count(*) from other.material m1_0", List.of(), "material"));
+            Assertions.assertNull(CountEstimator.estimate(connection, "select count(*) from (select id from material) m1_0", List.of(), "material"));
+        }
+    }
+
+    /**
+     * Within a transaction the estimation leaves the statements before it in place.
+     */
+    @Test
+    @SneakyThrows
+    void withinTransaction() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("insert into material (id, supplier, title) values ('tx', 's0', 'transaction')");
+                Assertions.assertNull(CountEstimator.estimate(connection, "select count(*) from absent", List.of(), "absent"));
+                Assertions.assertNotNull(CountEstimator.estimate(connection, "select count(*) from material", List.of(), "material"));
+                try (ResultSet resultSet = statement.executeQuery("select count(*) from material where id = 'tx'")) {
+                    Assertions.assertTrue(resultSet.next());
+                    Assertions.assertEquals(1, resultSet.getInt(1));
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+}
@@ -4,6 +4,7 @@ import lombok.SneakyThrows;
 import org.h2.engine.Mode;
 import org.hibernate.mapping.Table;
 import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -42,6 +43,52 @@ public class DMLUtilTests extends DataSourceBase {
         log.info(sqlHolder.toString());
     }
 
+    @Test
+    void cachedInstance() {
+        Table table = TableSupports.get("brand_introduction");
+        DMLUtils instance = DMLUtils.getInstance(em, table);
+        assert instance == DMLUtils.getInstance(em, table);
+        DMLUtils.invalidate(MetadataExtractorIntegrator.INSTANCE, table.getName());
+        assert instance != DMLUtils.getInstance(em, table);
+    }
+
+    /**
+     * Tables of the same name, e.g. of another tenant or schema, have their own instances.
+     */
+    @Test
+    void cachedPerTable() {
+        Table table = TableSupports.get("brand_introduction");
+        Table another = TableBuilder.builder(table.getName())
+            .addColumn(columnBuilder -> columnBuilder
+                .name("id")
+                .privateKey(true)
+                .type(String.class))
+            .build();
+        DMLUtils instance = DMLUtils.getInstance(em, table);
+        DMLUtils anotherInstance = DMLUtils.getInstance(em, another);
+        Assertions.assertNotSame(instance, anotherInstance);
+        Assertions.assertSame(instance, DMLUtils.getInstance(em, table));
+        Assertions.assertSame(anotherInstance, DMLUtils.getInstance(em, another));
+
+        DMLUtils.invalidate(MetadataExtractorIntegrator.INSTANCE, table.getName());
+        Assertions.assertNotSame(instance, DMLUtils.getInstance(em, table));
+        Assertions.assertNotSame(anotherInstance, DMLUtils.getInstance(em, another));
+    }
+
+    @Test
+    @SneakyThrows
+    void firstPageNumber() {
+        Table table = TableSupports.get("brand_introduction");
+        DMLUtils instance = DMLUtils.getInstance(em, table);
+        SQLHolder oneBased = instance.select().applyQuery((root, query, cb) -> query.select(root.get("title")))
+            .applyPage(1, 10).jdbcQL();
+        SQLHolder zeroBased = instance.select(0).applyQuery((root, query, cb) -> query.select(root.get("title")))
+            .applyPage(1, 10).jdbcQL();
+        Assertions.assertNotEquals(oneBased, zeroBased);
+        Assertions.assertEquals(oneBased, instance.select(1).applyQuery((root, query, cb) -> query.select(root.get("title")))
+            .applyPage(1, 10).jdbcQL());
+    }
+
     @Test
     @SneakyThrows
     void dmlUpdate() {
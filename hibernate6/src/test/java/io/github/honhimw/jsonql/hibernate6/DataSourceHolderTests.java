@@ -0,0 +1,58 @@
+package io.github.honhimw.jsonql.hibernate6;
+
+import io.github.honhimw.jsonql.common.JDBCDriverType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class DataSourceHolderTests extends TestsBase {
+
+    /**
+     * Prepared statements are cached by the driver of every supported database.
+     */
+    @Test
+    void statementCacheProperties() {
+        assertProperties(Map.of(
+            "cachePrepStmts", "true",
+            "prepStmtCacheSize", "256",
+            "prepStmtCacheSqlLimit", "2048",
+            "useServerPrepStmts", "true"
+        ), DataSourceHolder.dataSourceProperties(JDBCDriverType.MYSQL, null));
+        assertProperties(Map.of(
+            "prepareThreshold", "5",
+            "preparedStatementCacheQueries", "256"
+        ), DataSourceHolder.dataSourceProperties(JDBCDriverType.PG, null));
+        assertProperties(Map.of(
+            "disableStatementPooling", "false",
+            "statementPoolingCacheSize", "256"
+        ), DataSourceHolder.dataSourceProperties(JDBCDriverType.SQL_SERVER, null));
+        assertProperties(Map.of(
+            "oracle.jdbc.implicitStatementCacheSize", "256"
+        ), DataSourceHolder.dataSourceProperties(JDBCDriverType.ORACLE, null));
+        assertProperties(Map.of(), DataSourceHolder.dataSourceProperties(JDBCDriverType.H2, null));
+        assertProperties(Map.of(), DataSourceHolder.dataSourceProperties(JDBCDriverType.SQLITE, Map.of()));
+    }
+
+    @Test
+    void givenPropertiesTakePrecedence() {
+        Properties properties = DataSourceHolder.dataSourceProperties(JDBCDriverType.MYSQL, Map.of(
+            "prepStmtCacheSize", "16",
+            "useSSL", "false"
+        ));
+        Assertions.assertEquals("16", properties.get("prepStmtCacheSize"));
+        Assertions.assertEquals("false", properties.get("useSSL"));
+        Assertions.assertEquals("true", properties.get("cachePrepStmts"));
+    }
+
+    private static void assertProperties(Map<String, Object> expected, Properties actual) {
+        Assertions.assertEquals(expected, Map.copyOf(actual));
+    }
+
+}
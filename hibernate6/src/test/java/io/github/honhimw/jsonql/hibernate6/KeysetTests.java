@@ -0,0 +1,157 @@
+package io.github.honhimw.jsonql.hibernate6;
+
+import io.github.honhimw.jsonql.hibernate6.internal.JsonQLCompiler;
+import io.github.honhimw.jsonql.hibernate6.internal.PlanCache;
+import io.github.honhimw.jsonql.hibernate6.meta.MockTableMetaCache;
+import lombok.SneakyThrows;
+import org.h2.engine.Mode;
+import org.hibernate.mapping.Table;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Timestamps apart by less than a millisecond, paged by a composite key of mixed directions.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class KeysetTests extends DataSourceBase {
+
+    @Language("json")
+    private static final String PAGE = """
+        {
+          "operation": "select",
+          "table": "keyset_event",
+          "orderBy": ["created_at", "-id"],
+          "pageSize": 2,
+          "cursor": %s
+        }
+        """;
+
+    private static final List<Object> ORDERED = List.of(1L, 3L, 2L, 4L, 5L);
+
+    private static MockTableMetaCache tableMetaCache;
+
+    @BeforeAll
+    @SneakyThrows
+    static void init() {
+        Mode.ModeEnum mode = Mode.ModeEnum.MSSQLServer;
+        String url = "jdbc:h2:mem:keyset;MODE\\=%s;DB_CLOSE_DELAY\\=-1;IGNORECASE\\=FALSE;DATABASE_TO_UPPER\\=FALSE".formatted(mode.name());
+        buildDatasource(
+            "org.h2.Driver",
+            url,
+            null, null
+        );
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table keyset_event (id bigint primary key, created_at timestamp(9))");
+            statement.execute("""
+                insert into keyset_event values
+                (1, '2026-01-01 00:00:00.000000001'), (2, '2026-01-01 00:00:00.000001'), (3, '2026-01-01 00:00:00.000001'),
+                (4, '2026-01-01 00:00:00.000002'), (5, '2026-01-01 00:00:01')
+                """);
+        }
+        Map<String, Table> tableMap = new HashMap<>();
+        tableMap.put("keyset_event", TableBuilder.builder("keyset_event")
+            .addColumn(columnBuilder -> columnBuilder
+                .name("id")
+                .privateKey(true)
+                .type(Long.class))
+            .addColumn(columnBuilder -> columnBuilder
+                .name("created_at")
+                .type(LocalDateTime.class))
+            .build());
+        tableMetaCache = new MockTableMetaCache(tableMap);
+    }
+
+    @AfterAll
+    static void clean() {
+        destroyDatasource();
+    }
+
+    @Test
+    void cursor() {
+        Assertions.assertEquals(ORDERED, ids(new JsonQLCompiler(em, tableMetaCache)));
+    }
+
+    /**
+     * A seek value is bound once per {@code orderBy} column, cached plans must bind the values of the next page.
+     */
+    @Test
+    void cursorWithPlanCache() {
+        JsonQLCompiler compiler = new JsonQLCompiler(em, tableMetaCache);
+        PlanCache planCache = new PlanCache(16);
+        compiler.acceptPlanCache(planCache);
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(ORDERED, ids(compiler));
+        }
+        Assertions.assertTrue(planCache.hitCount() > 0);
+    }
+
+    @Test
+    @SneakyThrows
+    @SuppressWarnings("unchecked")
+    void after() {
+        JsonQLExecutor executor = new JsonQLExecutor(new JsonQLCompiler(em, tableMetaCache));
+        @Language("json")
+        String after = """
+            {
+              "operation": "select",
+              "table": "keyset_event",
+              "orderBy": ["created_at", "-id"],
+              "pageSize": 10,
+              "after": ["2026-01-01 00:00:00.000001", 3]
+            }
+            """;
+        Map<String, Object> result = (Map<String, Object>) executor.executeDml(after);
+        List<Object> ids = ((List<Map<String, Object>>) result.get("list")).stream().map(row -> row.get("id")).toList();
+        Assertions.assertEquals(List.of(2L, 4L, 5L), ids);
+        Assertions.assertNull(result.get("cursor"));
+    }
+
+    @Test
+    @SneakyThrows
+    void afterOfEveryColumn() {
+        JsonQLCompiler compiler = new JsonQLCompiler(em, tableMetaCache);
+        @Language("json")
+        String after = """
+            {
+              "operation": "select",
+              "table": "keyset_event",
+              "orderBy": ["created_at", "-id"],
+              "pageSize": 10,
+              "after": ["2026-01-01 00:00:00.000001"]
+            }
+            """;
+        Assertions.assertThrows(IllegalStateException.class, () -> compiler.compile(MAPPER.readTree(after)));
+    }
+
+    @SneakyThrows
+    @SuppressWarnings("unchecked")
+    private List<Object> ids(JsonQLCompiler compiler) {
+        JsonQLExecutor executor = new JsonQLExecutor(compiler);
+        List<Object> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            Map<String, Object> result = (Map<String, Object>) executor.executeDml(PAGE.formatted(Objects.isNull(cursor) ? "null" : "\"%s\"".formatted(cursor)));
+            for (Map<String, Object> row : (List<Map<String, Object>>) result.get("list")) {
+                ids.add(row.get("id"));
+            }
+            cursor = (String) result.get("cursor");
+        } while (Objects.nonNull(cursor));
+        return ids;
+    }
+
+}
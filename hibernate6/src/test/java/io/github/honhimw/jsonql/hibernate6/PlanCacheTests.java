@@ -0,0 +1,150 @@
+package io.github.honhimw.jsonql.hibernate6;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.honhimw.jsonql.common.Nodes;
+import io.github.honhimw.jsonql.common.visitor.CRUDVisitor;
+import io.github.honhimw.jsonql.common.visitor.SelectVisitor;
+import io.github.honhimw.jsonql.common.visitor.WhereVisitor;
+import io.github.honhimw.jsonql.hibernate6.internal.JsonQLCompiler;
+import io.github.honhimw.jsonql.hibernate6.internal.PlanCache;
+import io.github.honhimw.jsonql.hibernate6.meta.MockTableMetaCache;
+import lombok.SneakyThrows;
+import org.h2.engine.Mode;
+import org.hibernate.mapping.Table;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class PlanCacheTests extends DataSourceBase {
+
+    private static MockTableMetaCache tableMetaCache;
+
+    @BeforeAll
+    static void init() {
+        Mode.ModeEnum mode = Mode.ModeEnum.MSSQLServer;
+        String url = "jdbc:h2:mem:test;MODE\\=%s;DB_CLOSE_DELAY\\=-1;IGNORECASE\\=FALSE;DATABASE_TO_UPPER\\=FALSE".formatted(mode.name());
+        buildDatasource(
+            "org.h2.Driver",
+            url,
+            null, null
+        );
+        Map<String, Table> tableMap = new HashMap<>();
+        tableMap.put("plan_order", TableBuilder.builder("plan_order")
+            .addColumn(columnBuilder -> columnBuilder
+                .name("id")
+                .privateKey(true)
+                .type(Long.class))
+            .addColumn(columnBuilder -> columnBuilder
+                .name("created_at")
+                .type(LocalDateTime.class))
+            .build());
+        tableMetaCache = new MockTableMetaCache(tableMap);
+    }
+
+    @AfterAll
+    static void clean() {
+        destroyDatasource();
+    }
+
+    /**
+     * The binder converts an int literal of a bigint column and a date string of a timestamp column, identical
+     * requests must not freeze those values into the plan.
+     */
+    @Test
+    @SneakyThrows
+    void convertedParameters() {
+        JsonQLCompiler compiler = new JsonQLCompiler(em, tableMetaCache);
+        PlanCache planCache = new PlanCache(16);
+        compiler.acceptPlanCache(planCache);
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "plan_order",
+              "condition": {
+                "id": %d,
+                "created_at": {
+                  ">": "%s"
+                }
+              }
+            }
+            """;
+        compiler.compile(MAPPER.readTree(select.formatted(1, "2026-01-01 00:00:00")));
+        compiler.compile(MAPPER.readTree(select.formatted(1, "2026-01-01 00:00:00")));
+        for (int i = 2; i < 5; i++) {
+            String request = select.formatted(i, "2026-01-0%d 12:30:00".formatted(i));
+            List<SQLHolder> cached = compiler.compile(MAPPER.readTree(request));
+            List<SQLHolder> compiled = new JsonQLCompiler(em, tableMetaCache).compile(MAPPER.readTree(request));
+            assert cached.size() == compiled.size();
+            for (int j = 0; j < compiled.size(); j++) {
+                assert cached.get(j).sql().equals(compiled.get(j).sql());
+                assert cached.get(j).parameters().equals(compiled.get(j).parameters());
+            }
+        }
+    }
+
+    /**
+     * A constant of a custom visitor equal to the page size is traced to the page size as well, the plan must not
+     * bind the next page size to it.
+     */
+    @Test
+    @SneakyThrows
+    void constantEqualToLiteral() {
+        Function<CRUDVisitor, CRUDVisitor> tenant = cv -> new CRUDVisitor(cv) {
+            @Override
+            public SelectVisitor visitSelect() {
+                return new SelectVisitor(super.visitSelect()) {
+                    @Override
+                    public WhereVisitor visitWhere(boolean queryDeleted, ObjectNode where) {
+                        return new WhereVisitor(super.visitWhere(queryDeleted, where)) {
+                            @Override
+                            public void visitStart() {
+                                super.visitStart();
+                                visitCondition("id", Nodes.EQUAL.key(), 1L);
+                            }
+                        };
+                    }
+                };
+            }
+        };
+        JsonQLCompiler compiler = new JsonQLCompiler(em, tableMetaCache);
+        compiler.acceptVisitor(tenant);
+        compiler.acceptPlanCache(new PlanCache(16));
+        JsonQLCompiler fresh = new JsonQLCompiler(em, tableMetaCache);
+        fresh.acceptVisitor(tenant);
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "plan_order",
+              "page": 1,
+              "pageSize": %d
+            }
+            """;
+        for (int pageSize : new int[]{1, 1, 20, 21, 22}) {
+            String request = select.formatted(pageSize);
+            List<SQLHolder> cached = compiler.compile(MAPPER.readTree(request));
+            List<SQLHolder> compiled = fresh.compile(MAPPER.readTree(request));
+            Assertions.assertEquals(compiled.size(), cached.size());
+            for (int j = 0; j < compiled.size(); j++) {
+                Assertions.assertEquals(compiled.get(j).sql(), cached.get(j).sql());
+                Assertions.assertEquals(compiled.get(j).parameters(), cached.get(j).parameters(), "pageSize " + pageSize);
+            }
+        }
+        Assertions.assertTrue(compiler.getPlanCache().hitCount() > 0);
+    }
+
+}
@@ -0,0 +1,149 @@
+package io.github.honhimw.jsonql.hibernate6;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.honhimw.jsonql.common.ReplicaRouter;
+import io.github.honhimw.jsonql.hibernate6.internal.JsonQLCompiler;
+import lombok.SneakyThrows;
+import org.h2.engine.Mode;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A second pool of the same database stands in for a replica, counting the connections it hands out.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class ReplicaRouterTests extends DataSourceBase {
+
+    private static final AtomicInteger replicaReads = new AtomicInteger();
+
+    private static HikariDataSource replica;
+
+    @BeforeAll
+    @SneakyThrows
+    static void init() {
+        Mode.ModeEnum mode = Mode.ModeEnum.MSSQLServer;
+        String url = "jdbc:h2:mem:replica;MODE\\=%s;DB_CLOSE_DELAY\\=-1;IGNORECASE\\=FALSE;DATABASE_TO_UPPER\\=FALSE".formatted(mode.name());
+        buildDatasource(
+            "org.h2.Driver",
+            url,
+            null, null
+        );
+        // selects in a transaction stay on the primary
+        em.getTransaction().commit();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table brand_introduction (id varchar(64) primary key, introduction varchar(255), logo varchar(255), title varchar(255))");
+        }
+        replica = new HikariDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                replicaReads.incrementAndGet();
+                return super.getConnection();
+            }
+        };
+        replica.setDriverClassName("org.h2.Driver");
+        replica.setJdbcUrl(url);
+    }
+
+    @AfterAll
+    static void clean() {
+        replica.close();
+        destroyDatasource();
+    }
+
+    /**
+     * After a write, selects of the writer stay on the primary while an unrelated reader still reaches the replica.
+     */
+    @Test
+    @SneakyThrows
+    void readYourWrites() {
+        // the router would close the replica
+        ReplicaRouter replicaRouter = new ReplicaRouter(List.of(replica), ReplicaRouter.Balancing.ROUND_ROBIN, 60_000);
+        JsonQLCompiler compiler = new JsonQLCompiler(em, mockTableMetaCache);
+        JsonQLExecutor writer = new JsonQLExecutor(compiler, replicaRouter, "writer");
+        JsonQLExecutor reader = new JsonQLExecutor(compiler, replicaRouter, "reader");
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "brand_introduction"
+            }
+            """;
+        @Language("json")
+        String insert = """
+            {
+              "data": {
+                "id": "1",
+                "title": "replica"
+              },
+              "operation": "insert",
+              "table": "brand_introduction"
+            }
+            """;
+        int reads = replicaReads.get();
+        Assertions.assertEquals(List.of(), writer.executeDml(select));
+        Assertions.assertEquals(reads + 1, replicaReads.get());
+
+        writer.executeDml(insert);
+        Assertions.assertEquals(1, ((List<?>) writer.executeDml(select)).size());
+        Assertions.assertEquals(reads + 1, replicaReads.get());
+
+        Assertions.assertEquals(1, ((List<?>) reader.executeDml(select)).size());
+        Assertions.assertEquals(reads + 2, replicaReads.get());
+        Assertions.assertNull(replicaRouter.acquire("writer"));
+        try (ReplicaRouter.Lease lease = replicaRouter.acquire("reader")) {
+            Assertions.assertNotNull(lease);
+        }
+        Assertions.assertArrayEquals(new int[]{0}, replicaRouter.pending());
+    }
+
+    /**
+     * Executors without a session are sessions of their own.
+     */
+    @Test
+    @SneakyThrows
+    void executorSession() {
+        ReplicaRouter replicaRouter = new ReplicaRouter(List.of(replica), ReplicaRouter.Balancing.ROUND_ROBIN, 60_000);
+        JsonQLCompiler compiler = new JsonQLCompiler(em, mockTableMetaCache);
+        JsonQLExecutor writer = new JsonQLExecutor(compiler, replicaRouter);
+        JsonQLExecutor reader = new JsonQLExecutor(compiler, replicaRouter);
+        @Language("json")
+        String update = """
+            {
+              "data": {
+                "title": "updated"
+              },
+              "condition": {
+                "id": "absent"
+              },
+              "operation": "update",
+              "table": "brand_introduction"
+            }
+            """;
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "brand_introduction"
+            }
+            """;
+        writer.executeDml(update);
+        int reads = replicaReads.get();
+        writer.executeDml(select);
+        Assertions.assertEquals(reads, replicaReads.get());
+        reader.executeDml(select);
+        Assertions.assertEquals(reads + 1, replicaReads.get());
+    }
+
+}
@@ -0,0 +1,155 @@
+package io.github.honhimw.jsonql.hibernate6;
+
+import io.github.honhimw.jsonql.common.ResultCache;
+import io.github.honhimw.jsonql.hibernate6.internal.JsonQLCompiler;
+import lombok.SneakyThrows;
+import org.h2.engine.Mode;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class ResultCacheTests extends DataSourceBase {
+
+    @Language("json")
+    private static final String SELECT = """
+        {
+          "operation": "select",
+          "table": "brand_introduction",
+          "orderBy": ["id"]
+        }
+        """;
+
+    @BeforeAll
+    @SneakyThrows
+    static void init() {
+        Mode.ModeEnum mode = Mode.ModeEnum.MSSQLServer;
+        String url = "jdbc:h2:mem:result_cache;MODE\\=%s;DB_CLOSE_DELAY\\=-1;IGNORECASE\\=FALSE;DATABASE_TO_UPPER\\=FALSE".formatted(mode.name());
+        buildDatasource(
+            "org.h2.Driver",
+            url,
+            null, null
+        );
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table brand_introduction (id varchar(64) primary key, introduction varchar(255), logo varchar(255), title varchar(255))");
+            statement.execute("insert into brand_introduction (id, title) values ('1', 'foo'), ('2', 'bar')");
+            statement.execute("create table material (id varchar(64) primary key, supplier varchar(64), title varchar(255))");
+            statement.execute("insert into material (id, title) values ('1', 'material')");
+        }
+    }
+
+    @AfterAll
+    static void clean() {
+        destroyDatasource();
+    }
+
+    /**
+     * A cached result is served until a write through the executor invalidates its table.
+     */
+    @Test
+    @SneakyThrows
+    void cachedUntilWritten() {
+        JsonQLCompiler compiler = new JsonQLCompiler(em, mockTableMetaCache);
+        ResultCache resultCache = ResultCache.builder()
+            .table("brand_introduction", Duration.ofMinutes(1))
+            .build();
+        compiler.acceptResultCache(resultCache);
+        @Language("json")
+        String update = """
+            {
+              "data": {
+                "logo": "cached"
+              },
+              "condition": {
+                "id": "1"
+              },
+              "operation": "update",
+              "table": "brand_introduction"
+            }
+            """;
+        try (Connection connection = dataSource.getConnection()) {
+            List<?> first = (List<?>) JsonQLExecutor.execute(SELECT, compiler, connection);
+            Assertions.assertSame(first, JsonQLExecutor.execute(SELECT, compiler, connection));
+            ResultCache.Stats stats = resultCache.stats();
+            Assertions.assertEquals(1, stats.hits());
+            Assertions.assertEquals(1, stats.misses());
+            Assertions.assertThrows(UnsupportedOperationException.class, first::clear);
+            Assertions.assertThrows(UnsupportedOperationException.class, () -> ((Map<?, ?>) first.get(0)).clear());
+
+            JsonQLExecutor.execute(update, compiler, connection);
+            List<?> afterUpdate = (List<?>) JsonQLExecutor.execute(SELECT, compiler, connection);
+            Assertions.assertNotSame(first, afterUpdate);
+            Assertions.assertEquals("cached", ((Map<?, ?>) afterUpdate.get(0)).get("logo"));
+            stats = resultCache.stats();
+            Assertions.assertEquals(2, stats.misses());
+            Assertions.assertEquals(1, stats.invalidations());
+        }
+    }
+
+    /**
+     * Selects within a transaction may read rows that are never committed.
+     */
+    @Test
+    @SneakyThrows
+    void notCachedInTransaction() {
+        JsonQLCompiler compiler = new JsonQLCompiler(em, mockTableMetaCache);
+        ResultCache resultCache = ResultCache.builder()
+            .table("brand_introduction", Duration.ofMinutes(1))
+            .build();
+        compiler.acceptResultCache(resultCache);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                Object first = JsonQLExecutor.execute(SELECT, compiler, connection);
+                Assertions.assertNotSame(first, JsonQLExecutor.execute(SELECT, compiler, connection));
+                Assertions.assertEquals(0, resultCache.stats().misses());
+                Assertions.assertEquals(0, resultCache.stats().size());
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Tables without a TTL and results beyond the maximum rows are not cached.
+     */
+    @Test
+    @SneakyThrows
+    void notCached() {
+        JsonQLCompiler compiler = new JsonQLCompiler(em, mockTableMetaCache);
+        ResultCache resultCache = ResultCache.builder()
+            .table("brand_introduction", Duration.ofMinutes(1))
+            .maximumRows(1)
+            .build();
+        compiler.acceptResultCache(resultCache);
+        @Language("json")
+        String material = """
+            {
+              "operation": "select",
+              "table": "material"
+            }
+            """;
+        try (Connection connection = dataSource.getConnection()) {
+            Assertions.assertNotSame(JsonQLExecutor.execute(material, compiler, connection), JsonQLExecutor.execute(material, compiler, connection));
+            Assertions.assertEquals(0, resultCache.stats().misses());
+
+            Assertions.assertNotSame(JsonQLExecutor.execute(SELECT, compiler, connection), JsonQLExecutor.execute(SELECT, compiler, connection));
+            Assertions.assertEquals(2, resultCache.stats().misses());
+            Assertions.assertEquals(0, resultCache.stats().size());
+        }
+    }
+
+}
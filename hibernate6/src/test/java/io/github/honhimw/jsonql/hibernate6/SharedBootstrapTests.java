@@ -0,0 +1,148 @@
+package io.github.honhimw.jsonql.hibernate6;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.honhimw.jsonql.common.JDBCDriverType;
+import io.github.honhimw.jsonql.hibernate6.ddl.MetadataExtractor;
+import lombok.SneakyThrows;
+import org.h2.engine.Mode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Two in-memory databases of the same H2 version stand in for the data sources sharing a bootstrap.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class SharedBootstrapTests extends TestsBase {
+
+    private static HikariDataSource first;
+
+    private static HikariDataSource second;
+
+    @BeforeAll
+    @SneakyThrows
+    static void init() {
+        first = dataSource("shared_first");
+        second = dataSource("shared_second");
+        for (HikariDataSource dataSource : List.of(first, second)) {
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("create table tenant_row (id varchar(64) primary key, title varchar(255))");
+                statement.execute("insert into tenant_row values ('1', '%s')".formatted(dataSource.getPoolName()));
+            }
+        }
+        try (Connection connection = first.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table first_only (id varchar(64) primary key)");
+        }
+    }
+
+    @AfterAll
+    static void clean() {
+        first.close();
+        second.close();
+    }
+
+    /**
+     * Data sources of the same database version share the bootstrap, sessions of a tenant connect to its own
+     * data source.
+     */
+    @Test
+    void sharedByTenants() {
+        SharedBootstrap bootstrap = SharedBootstrap.of(JDBCDriverType.H2, "first", first);
+        try {
+            Assertions.assertSame(bootstrap, SharedBootstrap.of(JDBCDriverType.H2, "second", second));
+            try {
+                Assertions.assertEquals(2, bootstrap.getTenantCount());
+                Assertions.assertEquals(first.getPoolName(), title(bootstrap, "first"));
+                Assertions.assertEquals(second.getPoolName(), title(bootstrap, "second"));
+            } finally {
+                bootstrap.release("second", second);
+            }
+            Assertions.assertEquals(1, bootstrap.getTenantCount());
+        } finally {
+            bootstrap.release("first", first);
+        }
+        Assertions.assertEquals(0, bootstrap.getTenantCount());
+
+        // closed with its last tenant
+        SharedBootstrap next = SharedBootstrap.of(JDBCDriverType.H2, "first", first);
+        try {
+            Assertions.assertNotSame(bootstrap, next);
+        } finally {
+            next.release("first", first);
+        }
+    }
+
+    /**
+     * Only the data source the tenant registered is released, not one registered later under the same id.
+     */
+    @Test
+    void releaseOwnDataSource() {
+        SharedBootstrap bootstrap = SharedBootstrap.of(JDBCDriverType.H2, "first", first);
+        try {
+            bootstrap.release("first", second);
+            Assertions.assertEquals(1, bootstrap.getTenantCount());
+        } finally {
+            bootstrap.release("first", first);
+        }
+        Assertions.assertEquals(0, bootstrap.getTenantCount());
+    }
+
+    /**
+     * Metadata of a tenant is read over its own data source, never through the shared session factory.
+     */
+    @Test
+    void tenantMetadata() {
+        SharedBootstrap bootstrap = SharedBootstrap.of(JDBCDriverType.H2, "first", first);
+        try {
+            SharedBootstrap.of(JDBCDriverType.H2, "second", second);
+            try {
+                MetadataExtractorIntegrator tenant = bootstrap.integrator("second");
+                Assertions.assertTrue(tenant.isShared());
+                Assertions.assertEquals("second", tenant.getDataSourceId());
+                Assertions.assertThrows(IllegalArgumentException.class, () -> new MetadataExtractor(tenant));
+
+                MetadataExtractor extractor = new MetadataExtractor(tenant, second);
+                Assertions.assertThrows(IllegalStateException.class, extractor::getDatabaseInformation);
+                Assertions.assertTrue(extractor.getTableMeta("tenant_row").stream().anyMatch(column -> column.name().equals("title")));
+                Assertions.assertNull(extractor.getTableMeta("first_only"));
+                Assertions.assertNotNull(new MetadataExtractor(bootstrap.integrator("first"), first).getTableMeta("first_only"));
+            } finally {
+                bootstrap.release("second", second);
+            }
+        } finally {
+            bootstrap.release("first", first);
+        }
+    }
+
+    private static String title(SharedBootstrap bootstrap, String tenantId) {
+        try (Session session = bootstrap.openSession(tenantId)) {
+            return session.doReturningWork(connection -> {
+                try (Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery("select title from tenant_row")) {
+                    Assertions.assertTrue(resultSet.next());
+                    return resultSet.getString(1);
+                }
+            });
+        }
+    }
+
+    private static HikariDataSource dataSource(String name) {
+        String url = "jdbc:h2:mem:%s;MODE\\=%s;DB_CLOSE_DELAY\\=-1;IGNORECASE\\=FALSE;DATABASE_TO_UPPER\\=FALSE".formatted(name, Mode.ModeEnum.MSSQLServer.name());
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setJdbcUrl(url);
+        return dataSource;
+    }
+
+}
@@ -0,0 +1,248 @@
+package io.github.honhimw.jsonql.hibernate6;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.honhimw.jsonql.hibernate6.internal.JsonQLCompiler;
+import lombok.SneakyThrows;
+import org.h2.engine.Mode;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Results written to a {@link JsonGenerator} are the same JSON as the serialized results.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+public class StreamingTests extends DataSourceBase {
+
+    private static final int ROWS = 5;
+
+    @BeforeAll
+    @SneakyThrows
+    static void init() {
+        Mode.ModeEnum mode = Mode.ModeEnum.MSSQLServer;
+        String url = "jdbc:h2:mem:streaming;MODE\\=%s;DB_CLOSE_DELAY\\=-1;IGNORECASE\\=FALSE;DATABASE_TO_UPPER\\=FALSE".formatted(mode.name());
+        buildDatasource(
+            "org.h2.Driver",
+            url,
+            null, null
+        );
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table material (id varchar(64) primary key, supplier varchar(64), title varchar(255))");
+            try (PreparedStatement material = connection.prepareStatement("insert into material (id, supplier, title) values (?, ?, ?)")) {
+                for (int i = 0; i < ROWS; i++) {
+                    material.setString(1, "m" + i);
+                    material.setString(2, "s" + i);
+                    material.setString(3, "material-" + i);
+                    material.executeUpdate();
+                }
+            }
+            statement.execute("create table typed_value (id bigint primary key, created timestamp(6), ratio float, amount real, price decimal(10, 2), enabled boolean, title varchar(255))");
+            statement.execute("insert into typed_value values (9007199254740993, timestamp '2024-07-02 10:11:12.123456', 0.1, 0.3, 12.34, true, 'value')");
+            statement.execute("insert into typed_value values (2, null, null, null, null, null, null)");
+        }
+    }
+
+    @AfterAll
+    static void clean() {
+        destroyDatasource();
+    }
+
+    @Test
+    @SneakyThrows
+    void writeResult() {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            String expected;
+            try (ResultSet resultSet = statement.executeQuery("select * from typed_value order by id")) {
+                expected = MAPPER.writeValueAsString(JDBCUtils.extractResult(resultSet));
+            }
+            StringWriter writer = new StringWriter();
+            try (JsonGenerator generator = MAPPER.createGenerator(writer);
+                 ResultSet resultSet = statement.executeQuery("select * from typed_value order by id")) {
+                Assertions.assertEquals(2, JDBCUtils.writeResult(resultSet, generator));
+            }
+            Assertions.assertEquals(expected, writer.toString());
+            Assertions.assertTrue(expected.contains("\"9007199254740993\""), expected);
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void countModes() {
+        JsonQLExecutor executor = new JsonQLExecutor(new JsonQLCompiler(em, mockTableMetaCache));
+        for (String countMode : List.of("count", "lazy", "parallel", "estimate")) {
+            ObjectNode page = page(countMode);
+            // the last page comes back short, a lazy count skips the count query there
+            for (int pageNumber : new int[]{1, 3}) {
+                page.put("page", pageNumber);
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                executor.executeDml(page, outputStream);
+                JsonNode written = MAPPER.readTree(outputStream.toByteArray());
+                Assertions.assertEquals(MAPPER.valueToTree(executor.executeDml(page)), written, countMode);
+                Assertions.assertEquals(String.valueOf(ROWS), written.get("total").asText(), countMode);
+            }
+        }
+    }
+
+    /**
+     * The count query of a parallel page runs on another connection while the rows are written.
+     */
+    @Test
+    @SneakyThrows
+    void parallelCount() {
+        JsonQLCompiler compiler = new JsonQLCompiler(em, mockTableMetaCache);
+        ObjectNode page = page("parallel");
+        Function<SQLHolder, CompletableFuture<List<Map<String, Object>>>> countRunner = countHolder -> CompletableFuture.supplyAsync(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                return JsonQLExecutor.executeDmlQuery(countHolder, connection);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        StringWriter writer = new StringWriter();
+        try (Connection connection = dataSource.getConnection(); JsonGenerator generator = MAPPER.createGenerator(writer)) {
+            Assertions.assertEquals(2, JsonQLExecutor.executeDmlQuery(page, compiler.compile(page), connection, generator, countRunner));
+        }
+        JsonNode written = MAPPER.readTree(writer.toString());
+        Assertions.assertEquals(String.valueOf(ROWS), written.get("total").asText());
+        Assertions.assertEquals("material-0", written.at("/list/0/title").asText());
+    }
+
+    @Test
+    @SneakyThrows
+    void keyset() {
+        JsonQLExecutor executor = new JsonQLExecutor(new JsonQLCompiler(em, mockTableMetaCache));
+        @Language("json")
+        String firstPage = """
+            {
+              "operation": "select",
+              "table": "material",
+              "orderBy": ["id"],
+              "pageSize": 2,
+              "after": []
+            }
+            """;
+        JsonNode rootNode = MAPPER.readTree(firstPage);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        executor.executeDml(rootNode, outputStream);
+        JsonNode written = MAPPER.readTree(outputStream.toByteArray());
+        Assertions.assertEquals(MAPPER.valueToTree(executor.executeDml(rootNode)), written);
+        Assertions.assertEquals(2, written.get("list").size());
+        Assertions.assertTrue(written.get("cursor").isTextual());
+    }
+
+    @Test
+    @SneakyThrows
+    void executeDmlStream() {
+        JsonQLExecutor executor = new JsonQLExecutor(new JsonQLCompiler(em, mockTableMetaCache));
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "material",
+              "orderBy": ["id"]
+            }
+            """;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Assertions.assertEquals(ROWS, executor.executeDmlStream(MAPPER.readTree(select), 2, rows::add));
+        Assertions.assertEquals(ROWS, rows.size());
+        for (int i = 0; i < ROWS; i++) {
+            Assertions.assertEquals("m" + i, rows.get(i).get("id"));
+            Assertions.assertEquals("s" + i, rows.get(i).get("supplier"));
+            Assertions.assertEquals("material-" + i, rows.get(i).get("title"));
+        }
+        @Language("json")
+        String delete = """
+            {
+              "operation": "delete",
+              "table": "material"
+            }
+            """;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> executor.executeDmlStream(MAPPER.readTree(delete), rows::add));
+    }
+
+    /**
+     * Auto-commit is disabled while streaming, so the fetch size takes effect, the statement is closed and auto-commit
+     * restored with the stream.
+     */
+    @Test
+    @SneakyThrows
+    void executeDmlQueryStream() {
+        JsonQLCompiler compiler = new JsonQLCompiler(em, mockTableMetaCache);
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "material",
+              "orderBy": ["id"]
+            }
+            """;
+        SQLHolder sqlHolder = compiler.compile(MAPPER.readTree(select)).get(0);
+        try (Connection connection = dataSource.getConnection()) {
+            List<PreparedStatement> statements = new ArrayList<>();
+            Connection tracking = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                Object result = method.invoke(connection, args);
+                if (result instanceof PreparedStatement statement) {
+                    statements.add(statement);
+                }
+                return result;
+            });
+            Assertions.assertTrue(connection.getAutoCommit());
+            try (Stream<Map<String, Object>> stream = JsonQLExecutor.executeDmlQueryStream(sqlHolder, 2, tracking)) {
+                Assertions.assertFalse(connection.getAutoCommit());
+                Assertions.assertEquals(1, statements.size());
+                Assertions.assertEquals(2, statements.get(0).getFetchSize());
+                List<Object> ids = stream.map(row -> row.get("id")).toList();
+                Assertions.assertEquals(List.of("m0", "m1", "m2", "m3", "m4"), ids);
+            }
+            Assertions.assertTrue(connection.getAutoCommit());
+            Assertions.assertTrue(statements.get(0).isClosed());
+
+            // left as it is within a transaction
+            connection.setAutoCommit(false);
+            try (Stream<Map<String, Object>> stream = JsonQLExecutor.executeDmlQueryStream(sqlHolder, 2, connection)) {
+                Assertions.assertEquals(ROWS, stream.count());
+            }
+            Assertions.assertFalse(connection.getAutoCommit());
+            connection.setAutoCommit(true);
+        }
+    }
+
+    @SneakyThrows
+    private ObjectNode page(String countMode) {
+        @Language("json")
+        String select = """
+            {
+              "operation": "select",
+              "table": "material",
+              "orderBy": ["id"],
+              "page": 1,
+              "pageSize": 2,
+              "countMode": "%s"
+            }
+            """.formatted(countMode);
+        return (ObjectNode) MAPPER.readTree(select);
+    }
+
+}
@@ -0,0 +1,139 @@
+package io.github.honhimw.jsonql.benchmarks.hibernate5;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.honhimw.jsonql.common.JsonUtils;
+
+import java.util.Map;
+
+/**
+ * Representative request shapes, named by the {@code shape} parameter of the benchmarks.
+ * {@code _{id}_} is bound from the context node so that inserts never collide.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+final class Requests {
+
+    private static final Map<String, String> REQUESTS = Map.of(
+        "simpleSelect", """
+            {
+              "operation": "select",
+              "table": "material",
+              "condition": {
+                "id": "m42"
+              }
+            }
+            """,
+        "pagedSelect", """
+            {
+              "operation": "select",
+              "table": "material",
+              "page": 2,
+              "pageSize": 20,
+              "condition": {
+                "title": {
+                  "starts": "material"
+                }
+              }
+            }
+            """,
+        "multiJoin", """
+            {
+              "operation": "select",
+              "table": "material",
+              "alias": "m",
+              "selections": ["m.id", "m.title", "s.status", "b.logo"],
+              "join": [
+                {
+                  "table": "material_supplier",
+                  "alias": "s",
+                  "joinColumn": "supplier",
+                  "referencedColumn": "id"
+                },
+                {
+                  "table": "brand_introduction",
+                  "alias": "b",
+                  "joinColumn": "brand",
+                  "referencedColumn": "id"
+                }
+              ],
+              "condition": {
+                "s.status": "enabled",
+                "b.title": {
+                  "contains": "1"
+                }
+              }
+            }
+            """,
+        "deepWhere", """
+            {
+              "operation": "select",
+              "table": "material",
+              "condition": {
+                "or": [
+                  {
+                    "and": [
+                      {"title": {"starts": "material"}},
+                      {"supplier": {"in": ["s1", "s2", "s3"]}},
+                      {
+                        "or": [
+                          {"brand": "b1"},
+                          {"brand": "b2"},
+                          {"and": [{"id": {">": "m10"}}, {"id": {"<": "m20"}}]}
+                        ]
+                      }
+                    ]
+                  },
+                  {
+                    "and": [
+                      {"title": {"ends": "7"}},
+                      {"supplier": {"!in": ["s4", "s5"]}},
+                      {"brand": {"!null": null}}
+                    ]
+                  }
+                ]
+              }
+            }
+            """,
+        "insert", """
+            {
+              "operation": "insert",
+              "table": "event_log",
+              "data": {
+                "id": "_{id}_",
+                "content": "benchmark"
+              }
+            }
+            """,
+        "update", """
+            {
+              "operation": "update",
+              "table": "material",
+              "data": {
+                "title": "material updated"
+              },
+              "condition": {
+                "id": "m7"
+              }
+            }
+            """
+    );
+
+    private Requests() {
+    }
+
+    static JsonNode get(String shape) {
+        String json = REQUESTS.get(shape);
+        if (json == null) {
+            throw new IllegalArgumentException("Unknown request shape[%s].".formatted(shape));
+        }
+        try {
+            return JsonUtils.getObjectMapper().readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package io.github.honhimw.jsonql.benchmarks.hibernate6;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.honhimw.jsonql.common.JsonUtils;
+import io.github.honhimw.jsonql.hibernate6.SQLHolder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code JsonQLCompiler#compile} only, nothing is sent to the database.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CompileBenchmark {
+
+    @Param({"simpleSelect", "pagedSelect", "multiJoin", "deepWhere", "insert", "update"})
+    public String shape;
+
+    @Param({"0", "1024"})
+    public long planCacheSize;
+
+    private H2Fixture fixture;
+
+    private JsonNode request;
+
+    private ObjectNode contextNode;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fixture = H2Fixture.start(planCacheSize);
+        request = Requests.get(shape);
+        contextNode = JsonUtils.getObjectMapper().createObjectNode().put("id", "e0");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<SQLHolder> compile() {
+        return fixture.compiler().compile(request, contextNode);
+    }
+
+}
@@ -0,0 +1,56 @@
+package io.github.honhimw.jsonql.benchmarks.hibernate6;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.honhimw.jsonql.common.JsonUtils;
+import io.github.honhimw.jsonql.hibernate6.JsonQLExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code JsonQLExecutor#execute} end to end: connection checkout, compile, execute and result extraction.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExecuteBenchmark {
+
+    @Param({"simpleSelect", "pagedSelect", "multiJoin", "deepWhere", "insert", "update"})
+    public String shape;
+
+    @Param({"0", "1024"})
+    public long planCacheSize;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private H2Fixture fixture;
+
+    private JsonNode request;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fixture = H2Fixture.start(planCacheSize);
+        request = Requests.get(shape);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Object execute() throws Exception {
+        ObjectNode contextNode = JsonUtils.getObjectMapper().createObjectNode().put("id", "e" + sequence.incrementAndGet());
+        try (Connection connection = fixture.getConnection()) {
+            return JsonQLExecutor.execute(request, contextNode, fixture.compiler(), connection);
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package io.github.honhimw.jsonql.benchmarks.hibernate6;
+
+import io.github.honhimw.jsonql.hibernate6.internal.JsonQLCompiler;
+import io.github.honhimw.jsonql.hibernate6.internal.PlanCache;
+import io.github.honhimw.jsonql.hibernate6.meta.MockTableMetaCache;
+import io.github.honhimw.jsonql.hibernate6.supports.JsonQLContext;
+import org.hibernate.mapping.Table;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory H2 database seeded with the benchmark tables, table metadata is read back through the
+ * {@link io.github.honhimw.jsonql.hibernate6.ddl.MetadataExtractor}, the way a real data source is described.
+ *
+ * @author hon_him
+ * @since 2026-10-17
+ */
+
+final class H2Fixture implements AutoCloseable {
+
+    private static final String URL = "jdbc:h2:mem:jsonql_%d;DB_CLOSE_DELAY\\=-1;IGNORECASE\\=FALSE;DATABASE_TO_UPPER\\=FALSE";
+
+    private static final List<String> DDL = List.of(
+        "create table brand_introduction (id varchar(64) not null, introduction varchar(255), logo varchar(255), title varchar(255), primary key (id))",
+        "create table material_supplier (id varchar(64) not null, contact varchar(255), status varchar(32), title varchar(255), primary key (id))",
+        "create table material (id varchar(64) not null, supplier varchar(64), brand varchar(64), title varchar(255), primary key (id))",
+        "create table event_log (id varchar(64) not null, content varchar(255), primary key (id))"
+    );
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private static final int BRANDS = 100;
+
+    private static final int SUPPLIERS = 100;
+
+    private static final int MATERIALS = 1000;
+
+    private final JsonQLContext context;
+
+    private final JsonQLCompiler compiler;
+
+    private H2Fixture(JsonQLContext context, JsonQLCompiler compiler) {
+        this.context = context;
+        this.compiler = compiler;
+    }
+
+    /**
+     * Every fixture gets its own database, so trials sharing a fork(e.g. {@code -f 0}) do not see each other.
+     *
+     * @param planCacheSize plan cache is disabled if not positive
+     */
+    static H2Fixture start(long planCacheSize) throws SQLException {
+        JsonQLContext context = JsonQLContext.builder()
+            .driverClassName("org.h2.Driver")
+            .url(URL.formatted(DATABASES.incrementAndGet()))
+            .build();
+        try (Connection connection = context.getDataSource().getConnection()) {
+            seed(connection);
+        }
+        Map<String, Table> tableMap = new HashMap<>();
+        for (String tableName : List.of("brand_introduction", "material_supplier", "material", "event_log")) {
+            tableMap.put(tableName, context.getMetadataExtractor().getTable(tableName));
+        }
+        JsonQLCompiler compiler = new JsonQLCompiler(context.getEm(), new MockTableMetaCache(tableMap));
+        if (planCacheSize > 0) {
+            compiler.acceptPlanCache(new PlanCache(planCacheSize));
+        }
+        return new H2Fixture(context, compiler);
+    }
+
+    JsonQLCompiler compiler() {
+        return compiler;
+    }
+
+    Connection getConnection() throws SQLException {
+        return context.getDataSource().getConnection();
+    }
+
+    @Override
+    public void close() throws Exception {
+        context.close();
+        context.getDataSource().close();
+    }
+
+    private static void seed(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String ddl : DDL) {
+                statement.execute(ddl);
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement("insert into brand_introduction (id, logo, title) values (?, ?, ?)")) {
+            for (int i = 0; i < BRANDS; i++) {
+                statement.setString(1, "b" + i);
+                statement.setString(2, "https://logo/" + i + ".svg");
+                statement.setString(3, "brand " + i);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        try (PreparedStatement statement = connection.prepareStatement("insert into material_supplier (id, status, title) values (?, ?, ?)")) {
+            for (int i = 0; i < SUPPLIERS; i++) {
+                statement.setString(1, "s" + i);
+                statement.setString(2, i % 4 == 0 ? "disabled" : "enabled");
+                statement.setString(3, "supplier " + i);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        try (PreparedStatement statement = connection.prepareStatement("insert into material (id, supplier, brand, title) values (?, ?, ?, ?)")) {
+            for (int i = 0; i < MATERIALS; i++) {
+                statement.setString(1, "m" + i);
+                statement.setString(2, "s" + i % SUPPLIERS);
+                statement.setString(3, "b" + i % BRANDS);
+                statement.setString(4, "material " + i);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+}